@@ -0,0 +1,206 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.input.PipeDelimitedInput;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.transform.CoerceStringsTransformer;
+import com.invirgance.example.olap.SchemaTransformer;
+import com.invirgance.example.olap.TableExtractor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Locates the AdventureWorks files used as benchmark fixtures and builds 
+ * synthetic scaled copies of them. The raw directory is taken from the 
+ * adventureworks.raw system property if set, otherwise it is looked for
+ * relative to the working directory.
+ * 
+ * @author jbanes
+ */
+public class Fixtures
+{
+    private static TableExtractor.CreateTable[] tables;
+    
+    public static File getRawDirectory()
+    {
+        var property = System.getProperty("adventureworks.raw");
+        
+        if(property != null) return new File(property);
+        
+        for(String path : new String[]{ "AdventureWorks/raw", "../AdventureWorks/raw" })
+        {
+            if(new File(path, "instawdbdw.sql").exists()) return new File(path);
+        }
+        
+        throw new ConvirganceException("AdventureWorks/raw not found! Run from the project directory or set -Dadventureworks.raw");
+    }
+    
+    public static File getRawFile(String table)
+    {
+        return new File(getRawDirectory(), table + ".csv");
+    }
+    
+    public static byte[] getDDL()
+    {
+        try
+        {
+            return Files.readAllBytes(new File(getRawDirectory(), "instawdbdw.sql").toPath());
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    /**
+     * Builds a synthetic DDL script by repeating the table definitions under 
+     * new names. A scale of 1 returns the original script.
+     * 
+     * @param scale number of copies of the CREATE TABLE section
+     * @return the decoded script
+     */
+    public static String getScaledDDL(int scale)
+    {
+        var sql = new String(getDDL(), StandardCharsets.UTF_16);
+        var start = sql.indexOf("CREATE TABLE [dbo].[AdventureWorksDWBuildVersion]");
+        var end = sql.indexOf("SET ANSI_PADDING ON");
+        var body = sql.substring(start, end);
+        var buffer = new StringBuilder(sql.length() + body.length() * scale);
+        
+        buffer.append(sql, 0, end);
+        
+        for(var i=1; i<scale; i++) buffer.append(body.replace("[dbo].[", "[dbo].[Scaled" + i));
+        
+        buffer.append(sql, end, sql.length());
+        
+        return buffer.toString();
+    }
+    
+    public static synchronized TableExtractor.CreateTable getCreateTable(String name)
+    {
+        if(tables == null) tables = TableExtractor.parse(new String(getDDL(), StandardCharsets.UTF_16)).toArray(TableExtractor.CreateTable[]::new);
+        
+        for(var table : tables)
+        {
+            if(table.getTableName().equalsIgnoreCase(name)) return table;
+        }
+        
+        throw new ConvirganceException("Table " + name + " not found!");
+    }
+    
+    /**
+     * Creates a temporary raw file containing the records of the real file
+     * repeated the requested number of times. A scale of 1 returns the real
+     * file.
+     * 
+     * @param table the table to copy
+     * @param scale number of times to repeat the records
+     * @return a UTF-16 pipe delimited file with a BOM
+     */
+    public static File getScaledRawFile(String table, int scale)
+    {
+        var file = getRawFile(table);
+        
+        byte[] data;
+        File scaled;
+        
+        if(scale == 1) return file;
+        
+        try
+        {
+            data = Files.readAllBytes(file.toPath());
+            scaled = File.createTempFile(table + "-x" + scale + "-", ".csv");
+            
+            scaled.deleteOnExit();
+            
+            try(var out = new FileOutputStream(scaled))
+            {
+                out.write(data, 0, 2); // BOM
+                
+                for(var i=0; i<scale; i++) out.write(data, 2, data.length-2);
+            }
+            
+            return scaled;
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    public static PipeDelimitedInput getInput(String table)
+    {
+        return new PipeDelimitedInput(getCreateTable(table).getColumnNames(), "UTF-16");
+    }
+    
+    /**
+     * Reads a table into memory as the uncoerced strings produced by the 
+     * pipe delimited parser.
+     * 
+     * @param table the table to read
+     * @param scale number of times to repeat the records
+     * @return the parsed records
+     */
+    public static JSONObject[] readRecords(String table, int scale)
+    {
+        var records = new JSONArray<JSONObject>();
+        
+        for(JSONObject record : getInput(table).read(new FileSource(getRawFile(table)))) records.add(record);
+        
+        var result = records.toArray(JSONObject[]::new);
+        var scaled = new JSONObject[result.length * scale];
+        
+        for(var i=0; i<scale; i++)
+        {
+            for(var j=0; j<result.length; j++) scaled[i*result.length + j] = new JSONObject(result[j]);
+        }
+        
+        return scaled;
+    }
+    
+    public static JSONObject[] readCoercedRecords(String table, int scale)
+    {
+        var records = readRecords(table, scale);
+        var transformer = new CoerceStringsTransformer();
+        
+        for(var record : records) transformer.transform(record);
+        
+        return records;
+    }
+    
+    public static JSONObject[] readTypedRecords(String table, int scale)
+    {
+        var records = readRecords(table, scale);
+        var transformer = new SchemaTransformer(getCreateTable(table));
+        
+        for(var record : records) transformer.transform(record);
+        
+        return records;
+    }
+}
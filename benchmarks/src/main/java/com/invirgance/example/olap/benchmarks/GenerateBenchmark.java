@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.target.OutputStreamTarget;
+import com.invirgance.example.olap.RawOutput;
+import com.invirgance.example.olap.ScaledTable;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Synthesizing scaled tables for the generate tool, both on their own and 
+ * written out as raw UTF-16 files to a discarding stream. The tables that
+ * the generated table refers to are scaled as well so that foreign keys are
+ * shifted.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateBenchmark
+{
+    @Param({"FactFinance", "FactInternetSalesReason"})
+    public String table;
+    
+    @Param({"10"})
+    public int scale;
+    
+    @Param({"1", "4"})
+    public int threads;
+    
+    private ScaledTable scaled;
+    
+    private static Iterable<JSONObject> read(String table)
+    {
+        return Fixtures.getInput(table).read(new FileSource(Fixtures.getRawFile(table)));
+    }
+    
+    @Setup
+    public void setup()
+    {
+        var create = Fixtures.getCreateTable(table);
+        var tables = new HashMap<String,ScaledTable>();
+        
+        String name;
+        
+        for(var constraint : create.constraints)
+        {
+            name = constraint.getReferencedTableName();
+            
+            if(!constraint.isForeignKey() || name.equalsIgnoreCase(table) || !Fixtures.getRawFile(name).exists()) continue;
+            
+            tables.put(name, new ScaledTable(Fixtures.getCreateTable(name), read(name), Math.round(Math.sqrt(scale)), 0, new HashMap<>()));
+        }
+        
+        scaled = new ScaledTable(create, read(table), scale, 0, tables);
+        
+        scaled.setThreads(threads);
+    }
+    
+    @Benchmark
+    public void generate(Blackhole blackhole)
+    {
+        for(JSONObject record : scaled.read()) blackhole.consume(record);
+    }
+    
+    @Benchmark
+    public void raw() throws Exception
+    {
+        try(var cursor = new RawOutput(scaled.getCreateTable().getColumnNames()).write(new OutputStreamTarget(OutputStream.nullOutputStream())))
+        {
+            cursor.write(scaled.read());
+        }
+    }
+}
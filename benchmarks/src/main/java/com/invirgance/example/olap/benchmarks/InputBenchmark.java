@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.input.Input;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.example.olap.MappedPipeInput;
+import com.invirgance.example.olap.SchemaTransformer;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads the raw UTF-16 pipe delimited files with PipeDelimitedInput and with
+ * the memory mapped reader, with and without interning the character 
+ * columns. Run with <code>-prof gc</code> to compare the allocation rates.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputBenchmark
+{
+    @Param({"FactFinance", "FactCurrencyRate", "DimSalesTerritory", "DimDate"})
+    public String table;
+    
+    @Param({"1", "10"})
+    public int scale;
+    
+    @Param({"pipe", "mapped", "interned"})
+    public String reader;
+    
+    private File file;
+    private Input<JSONObject> input;
+    
+    @Setup
+    public void setup()
+    {
+        MappedPipeInput mapped;
+        
+        file = Fixtures.getScaledRawFile(table, scale);
+        
+        if(reader.equals("pipe"))
+        {
+            input = Fixtures.getInput(table);
+            return;
+        }
+        
+        mapped = new MappedPipeInput(Fixtures.getCreateTable(table).getColumnNames());
+        
+        if(reader.equals("interned")) mapped.setInterned(SchemaTransformer.getCharacterColumns(Fixtures.getCreateTable(table)));
+        else mapped.setInternThreshold(0);
+        
+        input = mapped;
+    }
+    
+    @Benchmark
+    public void read(Blackhole blackhole)
+    {
+        for(JSONObject record : input.read(new FileSource(file))) blackhole.consume(record);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.example.olap.KeySet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filtering the rows of a fact table by key membership the way the subset 
+ * tool does, with the primitive KeySet compared against a HashSet of the
+ * raw key strings. Half of the DimDate keys are in the set.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeySetBenchmark
+{
+    private static final List<String> KEY = List.of("DateKey");
+    
+    @Param({"10"})
+    public int scale;
+    
+    private JSONObject[] records;
+    private KeySet keys;
+    private HashSet<String> strings;
+    
+    @Setup
+    public void setup()
+    {
+        var dates = Fixtures.readRecords("DimDate", 1);
+        
+        records = Fixtures.readRecords("FactFinance", scale);
+        keys = new KeySet(true);
+        strings = new HashSet<>();
+        
+        for(var i=0; i<dates.length; i+=2)
+        {
+            keys.add(KeySet.getKey(dates[i], KEY));
+            strings.add(KeySet.getKey(dates[i], KEY));
+        }
+    }
+    
+    @Benchmark
+    public int keySet()
+    {
+        var count = 0;
+        
+        for(var record : records)
+        {
+            if(keys.contains(KeySet.getKey(record, KEY))) count++;
+        }
+        
+        return count;
+    }
+    
+    @Benchmark
+    public int hashSet()
+    {
+        var count = 0;
+        
+        for(var record : records)
+        {
+            if(strings.contains(KeySet.getKey(record, KEY))) count++;
+        }
+        
+        return count;
+    }
+}
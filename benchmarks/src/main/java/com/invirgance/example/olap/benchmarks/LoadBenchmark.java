@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.dbms.DBMS;
+import com.invirgance.convirgance.dbms.Query;
+import com.invirgance.convirgance.jdbc.datasource.DriverDataSource;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.example.olap.BatchInsertLoader;
+import com.invirgance.example.olap.BulkLoader;
+import com.invirgance.example.olap.DerbyBulkLoader;
+import com.invirgance.example.olap.LoadDatabase;
+import com.invirgance.example.olap.PostgresBulkLoader;
+import com.invirgance.example.olap.TableExtractor;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the batched insert loader against each database's native bulk
+ * loader. Derby runs embedded and in memory. PostgreSQL is only benchmarked 
+ * when a database is supplied with <code>-Dadventureworks.postgresql=url</code>
+ * (plus <code>.username</code> and <code>.password</code>) and selected with
+ * <code>-p database=postgresql</code>.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoadBenchmark
+{
+    @Param({"derby"})
+    public String database;
+    
+    @Param({"batch", "native"})
+    public String loader;
+    
+    @Param({"FactFinance", "DimDate"})
+    public String table;
+    
+    private DataSource source;
+    private BulkLoader bulkLoader;
+    private TableExtractor.CreateTable create;
+    private JSONObject[] records;
+    
+    private DataSource getDataSource()
+    {
+        var prefix = "adventureworks." + database;
+        
+        if(database.equals("derby"))
+        {
+            var derby = new EmbeddedDataSource();
+            
+            derby.setDatabaseName("memory:loadbench");
+            derby.setCreateDatabase("create");
+            
+            return derby;
+        }
+        
+        if(System.getProperty(prefix) == null) throw new ConvirganceException("Set -D" + prefix + " to benchmark " + database);
+        
+        return DriverDataSource.getDataSource(System.getProperty(prefix), System.getProperty(prefix + ".username"), System.getProperty(prefix + ".password"));
+    }
+    
+    private BulkLoader getLoader()
+    {
+        if(loader.equals("batch")) return new BatchInsertLoader();
+        if(database.equals("derby")) return new DerbyBulkLoader();
+        
+        return new PostgresBulkLoader();
+    }
+    
+    @Setup
+    public void setup()
+    {
+        source = getDataSource();
+        bulkLoader = getLoader();
+        create = Fixtures.getCreateTable(table);
+        records = Fixtures.readRecords(table, 1);
+    }
+    
+    @Setup(Level.Invocation)
+    public void createTable()
+    {
+        var dbms = new DBMS(source);
+        var load = new LoadDatabase();
+        
+        load.setDialectName(database);
+        
+        try
+        {
+            dbms.update(new Query("drop table " + create.getTableName()));
+        }
+        catch(ConvirganceException e)
+        {
+            // Table doesn't exist yet
+        }
+        
+        dbms.update(new Query(load.getCreateSQL(create)));
+    }
+    
+    @Benchmark
+    public void load()
+    {
+        bulkLoader.load(source, create, Arrays.asList(records));
+    }
+}
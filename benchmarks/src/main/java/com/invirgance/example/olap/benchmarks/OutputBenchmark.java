@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.Output;
+import com.invirgance.convirgance.target.OutputStreamTarget;
+import com.invirgance.example.olap.OutputFormat;
+import com.invirgance.example.olap.ParallelGZIPOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of coerced records by each of the convert output formats.
+ * Output is discarded so that only encoding is measured, optionally after 
+ * gzip compressing it on the given number of threads.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark
+{
+    @Param({"json", "csv", "jbin", "columnar"})
+    public String format;
+    
+    @Param({"FactFinance", "DimDate"})
+    public String table;
+    
+    @Param({"1", "10"})
+    public int scale;
+    
+    @Param({"0", "4"})
+    public int compressThreads;
+    
+    private JSONObject[] records;
+    private Output output;
+    
+    @Setup
+    public void setup()
+    {
+        records = Fixtures.readCoercedRecords(table, scale);
+        output = OutputFormat.getFormat(format).getOutput();
+    }
+    
+    @Benchmark
+    public void write() throws Exception
+    {
+        var out = OutputStream.nullOutputStream();
+        
+        if(compressThreads > 0) out = new ParallelGZIPOutputStream(out, compressThreads);
+        
+        try(var cursor = output.write(new OutputStreamTarget(out)))
+        {
+            for(JSONObject record : records) cursor.write(record);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.input.Input;
+import com.invirgance.convirgance.input.JBINInput;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.target.FileTarget;
+import com.invirgance.example.olap.ColumnarInput;
+import com.invirgance.example.olap.OutputFormat;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scans a converted table written as JBIN and as columnar, either reading
+ * every column or only the first two. JBIN has to decode whole records
+ * either way, while the columnar reader only reads the requested chunks.
+ * The size of each file is printed during setup.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark
+{
+    @Param({"jbin", "columnar"})
+    public String format;
+    
+    @Param({"FactFinance", "FactCurrencyRate", "DimDate"})
+    public String table;
+    
+    @Param({"1", "10"})
+    public int scale;
+    
+    @Param({"all", "projected"})
+    public String columns;
+    
+    private File file;
+    private String[] projection;
+    private Input<JSONObject> input;
+    
+    @Setup
+    public void setup() throws IOException
+    {
+        var output = OutputFormat.getFormat(format);
+        var names = Fixtures.getCreateTable(table).getColumnNames();
+        
+        file = File.createTempFile(table + "-x" + scale + "-", "." + output.getExtension());
+        projection = columns.equals("all") ? names : new String[]{ names[0], names[1] };
+        
+        file.deleteOnExit();
+        
+        try(var cursor = output.getOutput().write(new FileTarget(file)))
+        {
+            for(JSONObject record : Fixtures.readTypedRecords(table, scale)) cursor.write(output.adapt(record));
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        System.out.println(table + " x" + scale + " as " + format + ": " + file.length() + " bytes");
+        
+        if(format.equals("columnar")) input = new ColumnarInput(projection);
+        else input = new JBINInput();
+    }
+    
+    @Benchmark
+    public void scan(Blackhole blackhole)
+    {
+        for(JSONObject record : input.read(new FileSource(file)))
+        {
+            for(String column : projection) blackhole.consume(record.get(column));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap.benchmarks;
+
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.transform.CoerceStringsTransformer;
+import com.invirgance.example.olap.SchemaTransformer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Type coercion of parsed records, either guessed from the values or driven
+ * by the DDL column types. The transformers modify records in place
+ * so each record is copied first. The copy benchmark measures that overhead
+ * on its own so it can be subtracted.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark
+{
+    @Param({"FactFinance", "FactCurrencyRate", "DimDate"})
+    public String table;
+    
+    @Param({"1", "10"})
+    public int scale;
+    
+    private JSONObject[] records;
+    private CoerceStringsTransformer transformer;
+    private SchemaTransformer schema;
+    
+    @Setup
+    public void setup()
+    {
+        records = Fixtures.readRecords(table, scale);
+        transformer = new CoerceStringsTransformer();
+        schema = new SchemaTransformer(Fixtures.getCreateTable(table));
+    }
+    
+    @Benchmark
+    public void copy(Blackhole blackhole)
+    {
+        for(JSONObject record : records) blackhole.consume(new JSONObject(record));
+    }
+    
+    @Benchmark
+    public void coerce(Blackhole blackhole)
+    {
+        for(JSONObject record : records) blackhole.consume(transformer.transform(new JSONObject(record)));
+    }
+    
+    @Benchmark
+    public void schema(Blackhole blackhole)
+    {
+        for(JSONObject record : records) blackhole.consume(schema.transform(new JSONObject(record)));
+    }
+}
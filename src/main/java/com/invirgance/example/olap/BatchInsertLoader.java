@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.dbms.DBMS;
+import com.invirgance.convirgance.dbms.Query;
+import com.invirgance.convirgance.json.JSONObject;
+import javax.sql.DataSource;
+
+/**
+ * Portable loader using batched, parameterized inserts. Works with any 
+ * database and is the only loader that supports chunked commits.
+ * 
+ * @author jbanes
+ */
+public class BatchInsertLoader implements BulkLoader
+{
+    private int batchSize = 10000;
+    private int commitEvery;
+    private StreamingBatchOperation.ChunkListener listener;
+    private Metrics.Stage commitStage;
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public int getCommitEvery()
+    {
+        return commitEvery;
+    }
+
+    public void setCommitEvery(int commitEvery)
+    {
+        this.commitEvery = commitEvery;
+    }
+
+    public StreamingBatchOperation.ChunkListener getListener()
+    {
+        return listener;
+    }
+
+    public void setListener(StreamingBatchOperation.ChunkListener listener)
+    {
+        this.listener = listener;
+    }
+
+    public Metrics.Stage getCommitStage()
+    {
+        return commitStage;
+    }
+
+    /**
+     * @param commitStage the stage commit times are recorded in, or null to
+     *        record them under the table the rows are inserted into
+     */
+    public void setCommitStage(Metrics.Stage commitStage)
+    {
+        this.commitStage = commitStage;
+    }
+    
+    @Override
+    public String getName()
+    {
+        return "batch";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return true;
+    }
+
+    @Override
+    public void load(DataSource source, TableExtractor.CreateTable create, Iterable<JSONObject> records)
+    {
+        var sql = TableExtractor.getInsertSQL(create);
+        var operation = new StreamingBatchOperation(new Query(sql), records);
+        var commits = (commitStage != null) ? commitStage : Metrics.getCurrent().getStage(create.getTableName(), "commit");
+        var start = System.nanoTime();
+        
+        operation.setBatchSize(batchSize);
+        operation.setCommitEvery(commitEvery);
+        operation.setListener(listener);
+        operation.setCommitStage(commits);
+        
+        // Bulk load the data in a transaction, or a transaction per chunk
+        new DBMS(source).update(operation);
+        
+        // DBMS commits the transaction after the operation returns
+        commits.add((commitEvery > 0) ? 0 : operation.getCount(), System.nanoTime() - start - operation.getNanos());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.json.JSONObject;
+import javax.sql.DataSource;
+
+/**
+ * Strategy for moving a table's records into a database. Each database has
+ * its own native bulk path that is much faster than parameterized inserts, so
+ * the loader is chosen from the JDBC URL.
+ * 
+ * @author jbanes
+ */
+public interface BulkLoader
+{
+    /**
+     * @return the name used to select this loader on the command line
+     */
+    public String getName();
+    
+    /**
+     * @param url JDBC connection URL
+     * @return true if this loader can be used with the database
+     */
+    public boolean isSupported(String url);
+    
+    /**
+     * Loads the records into a table that has already been created
+     * 
+     * @param source the database to load
+     * @param create the table definition
+     * @param records the records to load, with binary columns already decoded
+     */
+    public void load(DataSource source, TableExtractor.CreateTable create, Iterable<JSONObject> records);
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+/**
+ * Renders records as RFC 4180 CSV on demand, for feeding database import 
+ * facilities without holding the whole table in memory. Nulls are written as
+ * empty fields while empty strings are quoted so the two stay distinct. Binary
+ * values are written as hex, optionally after a prefix such as PostgreSQL's
+ * <code>\x</code>. Timestamps use the JDBC escape format understood by both
+ * Derby and PostgreSQL.
+ * 
+ * @author jbanes
+ */
+public class CSVRecordReader extends Reader
+{
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    
+    private Iterator<JSONObject> iterator;
+    private String[] columns;
+    private String binaryPrefix;
+    
+    private StringBuilder line = new StringBuilder();
+    private int position;
+
+    public CSVRecordReader(Iterable<JSONObject> records, String[] columns, String binaryPrefix)
+    {
+        this.iterator = records.iterator();
+        this.columns = columns;
+        this.binaryPrefix = binaryPrefix;
+    }
+    
+    private void appendHex(byte[] data, int length)
+    {
+        for(var i=0; i<length; i++)
+        {
+            line.append(HEX[(data[i] >> 4) & 0xF]);
+            line.append(HEX[data[i] & 0xF]);
+        }
+    }
+    
+    private void appendStream(InputStream in) throws IOException
+    {
+        var buffer = new byte[8192];
+        int count;
+        
+        try(in)
+        {
+            while((count = in.read(buffer)) > 0) appendHex(buffer, count);
+        }
+    }
+    
+    private void appendString(String value)
+    {
+        var quote = value.isEmpty();
+        
+        for(var i=0; i<value.length() && !quote; i++)
+        {
+            var c = value.charAt(i);
+            
+            quote = (c == ',' || c == '"' || c == '\n' || c == '\r');
+        }
+        
+        if(!quote)
+        {
+            line.append(value);
+            return;
+        }
+        
+        line.append('"');
+        
+        for(var i=0; i<value.length(); i++)
+        {
+            if(value.charAt(i) == '"') line.append('"');
+            
+            line.append(value.charAt(i));
+        }
+        
+        line.append('"');
+    }
+    
+    private boolean nextLine() throws IOException
+    {
+        JSONObject record;
+        Object value;
+        
+        line.setLength(0);
+        position = 0;
+        
+        if(!iterator.hasNext()) return false;
+        
+        record = iterator.next();
+        
+        for(var i=0; i<columns.length; i++)
+        {
+            value = record.get(columns[i]);
+            
+            if(i > 0) line.append(',');
+            
+            if(value == null) continue;
+            
+            if(value instanceof byte[])
+            {
+                line.append(binaryPrefix);
+                appendHex((byte[])value, ((byte[])value).length);
+            }
+            else if(value instanceof InputStream)
+            {
+                line.append(binaryPrefix);
+                appendStream((InputStream)value);
+            }
+            else if(value instanceof LocalDateTime)
+            {
+                line.append(Timestamp.valueOf((LocalDateTime)value));
+            }
+            else if(value instanceof BigDecimal)
+            {
+                line.append(((BigDecimal)value).toPlainString());
+            }
+            else
+            {
+                appendString(value.toString());
+            }
+        }
+        
+        line.append('\n');
+        
+        return true;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException
+    {
+        int count;
+        
+        if(length == 0) return 0;
+        if(position >= line.length() && !nextLine()) return -1;
+        
+        count = Math.min(length, line.length() - position);
+        
+        line.getChars(position, position + count, buffer, offset);
+        
+        position += count;
+        
+        return count;
+    }
+
+    @Override
+    public void close()
+    {
+        if(iterator instanceof AutoCloseable)
+        {
+            try
+            {
+                ((AutoCloseable)iterator).close();
+            }
+            catch(Exception e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import java.io.File;
+
+/**
+ * Run by the Maven build to parse the DDL script once and embed the result
+ * in the jar, so the tools don't have to parse the script on every run.
+ * 
+ * <pre>
+ * CatalogBuilder &lt;ddl script&gt; &lt;catalog file&gt;
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public class CatalogBuilder
+{
+    public static void main(String[] args)
+    {
+        if(args.length != 2)
+        {
+            System.err.println("Usage: CatalogBuilder <ddl script> <catalog file>");
+            System.exit(1);
+        }
+        
+        TableExtractor.writeCatalog(new File(args[0]), new File(args[1]));
+    }
+}
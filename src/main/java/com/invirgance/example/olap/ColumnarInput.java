@@ -0,0 +1,477 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.CloseableIterator;
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.input.Input;
+import com.invirgance.convirgance.input.InputCursor;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import static com.invirgance.example.olap.ColumnarOutput.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads files written by ColumnarOutput. Only the chunks of the requested
+ * columns are read from disk, so projecting a few columns of a wide table
+ * costs a fraction of a full scan. Records contain the requested columns in
+ * the order they were requested, or every column in the order they were
+ * written if none were requested.
+ * <br><br>
+ * Values are returned as the type they were stored as. Decimals come back
+ * with the largest scale of their row group and timestamps are truncated to
+ * microseconds.
+ * 
+ * @author jbanes
+ */
+public class ColumnarInput implements Input<JSONObject>
+{
+    private String[] columns;
+
+    public ColumnarInput(String... columns)
+    {
+        this.columns = columns;
+    }
+
+    public String[] getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * @param columns the columns to read. All columns are read if none are
+     *        specified.
+     */
+    public void setColumns(String... columns)
+    {
+        this.columns = columns;
+    }
+
+    @Override
+    public InputCursor<JSONObject> read(Source source)
+    {
+        return new InputCursor<JSONObject>() {
+            @Override
+            public CloseableIterator<JSONObject> iterator()
+            {
+                return new ColumnarIterator(new ColumnarFile(source));
+            }
+        };
+    }
+    
+    private static long readVarLong(ByteBuffer buffer)
+    {
+        var value = 0L;
+        var shift = 0;
+        byte next;
+        
+        do
+        {
+            next = buffer.get();
+            value |= (long)(next & 0x7F) << shift;
+            shift += 7;
+        }
+        while((next & 0x80) != 0);
+        
+        return value;
+    }
+    
+    private static long readZigZag(ByteBuffer buffer)
+    {
+        var value = readVarLong(buffer);
+        
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static byte[] readBytes(ByteBuffer buffer)
+    {
+        var bytes = new byte[(int)readVarLong(buffer)];
+        
+        buffer.get(bytes);
+        
+        return bytes;
+    }
+    
+    private static long readValue(ByteBuffer buffer, byte type)
+    {
+        if(type == FLOAT32) return buffer.getInt();
+        if(type == FLOAT64) return buffer.getLong();
+        
+        return readZigZag(buffer);
+    }
+    
+    private static long[] decodeLongs(ByteBuffer buffer, byte type, int count)
+    {
+        var encoding = buffer.get();
+        var values = new long[count];
+        long value;
+        int length;
+        
+        switch(encoding)
+        {
+            case PLAIN:
+                for(var i=0; i<count; i++) values[i] = readValue(buffer, type);
+                break;
+                
+            case DELTA:
+                for(var i=0; i<count; i++) values[i] = readZigZag(buffer) + (i > 0 ? values[i-1] : 0);
+                break;
+                
+            case RUN_LENGTH:
+                for(var i=0; i<count; i+=length)
+                {
+                    value = readValue(buffer, type);
+                    length = (int)readVarLong(buffer);
+                    
+                    Arrays.fill(values, i, i + length, value);
+                }
+                break;
+                
+            default:
+                throw new ConvirganceException("Unknown encoding " + encoding);
+        }
+        
+        return values;
+    }
+    
+    private static Object toObject(byte type, long value, int scale)
+    {
+        switch(type)
+        {
+            case INT32: return (int)value;
+            case INT64: return value;
+            case FLOAT32: return Float.intBitsToFloat((int)value);
+            case FLOAT64: return Double.longBitsToDouble(value);
+            case DECIMAL: return BigDecimal.valueOf(value, scale);
+            case BOOLEAN: return value != 0;
+            case DATE: return LocalDate.ofEpochDay(value);
+            case TIMESTAMP: return LocalDateTime.ofEpochSecond(Math.floorDiv(value, 1_000_000L), (int)Math.floorMod(value, 1_000_000L) * 1000, ZoneOffset.UTC);
+        }
+        
+        throw new ConvirganceException("Unknown type " + type);
+    }
+    
+    private static Object toObject(byte type, byte[] value)
+    {
+        if(type == BINARY) return value;
+        
+        return new String(value, StandardCharsets.UTF_8);
+    }
+    
+    private static Object[] decodeValues(ByteBuffer buffer, byte type, int count)
+    {
+        var values = new Object[count];
+        Object[] entries;
+        long[] longs;
+        int scale;
+        
+        if(type == STRING || type == BINARY)
+        {
+            if(buffer.get() == PLAIN)
+            {
+                for(var i=0; i<count; i++) values[i] = toObject(type, readBytes(buffer));
+                
+                return values;
+            }
+            
+            entries = new Object[(int)readVarLong(buffer)];
+            
+            for(var i=0; i<entries.length; i++) entries[i] = toObject(type, readBytes(buffer));
+            
+            longs = decodeLongs(buffer, INT32, count);
+            
+            for(var i=0; i<count; i++)
+            {
+                values[i] = entries[(int)longs[i]];
+                
+                // Binary values are mutable, so don't share them between rows
+                if(type == BINARY) values[i] = ((byte[])values[i]).clone();
+            }
+            
+            return values;
+        }
+        
+        scale = (type == DECIMAL) ? (int)readVarLong(buffer) : 0;
+        longs = decodeLongs(buffer, type, count);
+        
+        for(var i=0; i<count; i++) values[i] = toObject(type, longs[i], scale);
+        
+        return values;
+    }
+    
+    private static Object[] decode(ByteBuffer buffer, int rows)
+    {
+        var type = buffer.get();
+        var values = new Object[rows];
+        byte[] bitmap = null;
+        Object[] decoded;
+        int index = 0;
+        
+        if(type == NULL) return values;
+        
+        if(buffer.get() != 0)
+        {
+            bitmap = new byte[(rows + 7) / 8];
+            
+            buffer.get(bitmap);
+        }
+        
+        decoded = decodeValues(buffer, type, (int)readVarLong(buffer));
+        
+        if(bitmap == null) return decoded;
+        
+        for(var i=0; i<rows; i++)
+        {
+            if((bitmap[i >> 3] & (1 << (i & 7))) != 0) values[i] = decoded[index++];
+        }
+        
+        return values;
+    }
+    
+    private static class ColumnarFile implements Closeable
+    {
+        private FileChannel channel;
+        private byte[] data;
+        
+        private String[] names;
+        private int[] rows;
+        private long[][] offsets;
+        private int[][] lengths;
+
+        public ColumnarFile(Source source)
+        {
+            ByteBuffer footer;
+            long size;
+            
+            try
+            {
+                if(source instanceof FileSource) 
+                {
+                    channel = FileChannel.open(((FileSource)source).getFile().toPath(), StandardOpenOption.READ);
+                    size = channel.size();
+                }
+                else
+                {
+                    try(var in = source.getInputStream())
+                    {
+                        data = in.readAllBytes();
+                        size = data.length;
+                    }
+                }
+                
+                if(size < MAGIC.length * 2 + 8) throw new ConvirganceException("Not a columnar file");
+                
+                footer = read(size - MAGIC.length - 8, MAGIC.length + 8);
+                
+                if(!Arrays.equals(MAGIC, 0, MAGIC.length, footer.array(), footer.arrayOffset() + 8, footer.arrayOffset() + 8 + MAGIC.length))
+                {
+                    throw new ConvirganceException("Not a columnar file");
+                }
+                
+                footer = read(footer.getLong(), (int)(size - MAGIC.length - 8 - footer.getLong(0)));
+                
+                readFooter(footer);
+            }
+            catch(IOException e)
+            {
+                close();
+                
+                throw new ConvirganceException(e);
+            }
+            catch(RuntimeException e)
+            {
+                close();
+                
+                throw e;
+            }
+        }
+        
+        private void readFooter(ByteBuffer footer)
+        {
+            int groups;
+            
+            names = new String[(int)readVarLong(footer)];
+            
+            for(var i=0; i<names.length; i++) names[i] = new String(readBytes(footer), StandardCharsets.UTF_8);
+            
+            groups = (int)readVarLong(footer);
+            rows = new int[groups];
+            offsets = new long[groups][];
+            lengths = new int[groups][];
+            
+            for(var i=0; i<groups; i++)
+            {
+                rows[i] = (int)readVarLong(footer);
+                offsets[i] = new long[(int)readVarLong(footer)];
+                lengths[i] = new int[offsets[i].length];
+                
+                for(var j=0; j<offsets[i].length; j++)
+                {
+                    offsets[i][j] = readVarLong(footer);
+                    lengths[i][j] = (int)readVarLong(footer);
+                }
+            }
+        }
+        
+        public int getColumn(String name)
+        {
+            for(var i=0; i<names.length; i++)
+            {
+                if(names[i].equals(name)) return i;
+            }
+            
+            throw new ConvirganceException("Column " + name + " not found!");
+        }
+        
+        public ByteBuffer read(long offset, int length) throws IOException
+        {
+            ByteBuffer buffer;
+            
+            if(data != null) return ByteBuffer.wrap(data, (int)offset, length).slice();
+            
+            buffer = ByteBuffer.allocate(length);
+            
+            while(buffer.hasRemaining())
+            {
+                if(channel.read(buffer, offset + buffer.position()) < 0) throw new IOException("Unexpected end of file");
+            }
+            
+            return buffer.flip();
+        }
+        
+        /**
+         * Reads and decodes one column of a row group. Columns that were 
+         * added after the group was written are all null.
+         */
+        public Object[] read(int group, int column) throws IOException
+        {
+            if(column >= offsets[group].length) return new Object[rows[group]];
+            
+            return decode(read(offsets[group][column], lengths[group][column]), rows[group]);
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                if(channel != null) channel.close();
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+    }
+    
+    private class ColumnarIterator implements CloseableIterator<JSONObject>
+    {
+        private final ColumnarFile file;
+        private final String[] names;
+        private final int[] selected;
+        private final Object[][] values;
+        
+        private int group;
+        private int row;
+        private int rows;
+
+        public ColumnarIterator(ColumnarFile file)
+        {
+            this.file = file;
+            
+            try
+            {
+                this.names = (columns == null || columns.length == 0) ? file.names : columns;
+                this.selected = new int[names.length];
+                this.values = new Object[names.length][];
+
+                for(var i=0; i<names.length; i++) selected[i] = file.getColumn(names[i]);
+            }
+            catch(RuntimeException e)
+            {
+                file.close();
+                
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while(row >= rows)
+            {
+                if(group >= file.rows.length)
+                {
+                    close();
+                    
+                    return false;
+                }
+                
+                try
+                {
+                    for(var i=0; i<selected.length; i++) values[i] = file.read(group, selected[i]);
+                }
+                catch(IOException e)
+                {
+                    throw new ConvirganceException(e);
+                }
+                
+                rows = file.rows[group++];
+                row = 0;
+            }
+            
+            return true;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            var record = new JSONObject(true);
+            
+            if(!hasNext()) throw new NoSuchElementException();
+            
+            for(var i=0; i<names.length; i++) record.put(names[i], values[i][row]);
+            
+            row++;
+            
+            return record;
+        }
+
+        @Override
+        public void close()
+        {
+            file.close();
+        }
+    }
+}
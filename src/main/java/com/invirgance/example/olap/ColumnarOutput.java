@@ -0,0 +1,607 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.Output;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.target.Target;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records column by column. Records are buffered into row groups and
+ * each column of a group is written as a separate chunk. A footer at the end
+ * of the file records the column names and the offset of every chunk so 
+ * that ColumnarInput can read only the columns it needs.
+ * <br><br>
+ * The storage type of a chunk is taken from its values, which carry the DDL
+ * column types when the records come from SchemaTransformer. The encoding is
+ * then picked from the candidates that suit the type. Integers, dates and
+ * timestamps may be delta or run-length encoded. Floating point and decimal
+ * values may be run-length encoded. Strings and binary values may be 
+ * dictionary encoded. Whichever candidate produces the smallest chunk is 
+ * used.
+ * <br><br>
+ * File layout:
+ * <pre>
+ * "OLAPCOL1"
+ * chunk ...
+ * footer: column count, column names, group count and for each group the 
+ *         row count, chunk count and the offset and length of each chunk
+ * footer offset (8 bytes)
+ * "OLAPCOL1"
+ * </pre>
+ * Chunks start with the storage type and a bitmap of the rows that are not 
+ * null. Integers are written as zigzag variable length integers. Decimals are
+ * stored unscaled at the largest scale in the chunk and timestamps as 
+ * microseconds since the epoch in UTC.
+ * 
+ * @author jbanes
+ */
+public class ColumnarOutput implements Output
+{
+    static final byte[] MAGIC = "OLAPCOL1".getBytes(StandardCharsets.US_ASCII);
+    
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INT32 = 2;
+    static final byte INT64 = 3;
+    static final byte FLOAT32 = 4;
+    static final byte FLOAT64 = 5;
+    static final byte DECIMAL = 6;
+    static final byte BOOLEAN = 7;
+    static final byte DATE = 8;
+    static final byte TIMESTAMP = 9;
+    static final byte BINARY = 10;
+    
+    static final byte PLAIN = 0;
+    static final byte DELTA = 1;
+    static final byte RUN_LENGTH = 2;
+    static final byte DICTIONARY = 3;
+    
+    private int groupSize = 65536;
+
+    public int getGroupSize()
+    {
+        return groupSize;
+    }
+
+    /**
+     * @param groupSize the number of rows buffered before the columns are 
+     *        written out as chunks
+     */
+    public void setGroupSize(int groupSize)
+    {
+        if(groupSize < 1) throw new ConvirganceException("Group size must be at least 1");
+        
+        this.groupSize = groupSize;
+    }
+
+    @Override
+    public OutputCursor write(Target target)
+    {
+        return new ColumnarCursor(target.getOutputStream());
+    }
+    
+    static boolean isFloatingPoint(byte type)
+    {
+        return (type == FLOAT32 || type == FLOAT64);
+    }
+    
+    private static boolean isInteger(byte type)
+    {
+        return (type == INT32 || type == INT64);
+    }
+    
+    private static byte getType(Object value)
+    {
+        if(value instanceof String) return STRING;
+        if(value instanceof Integer || value instanceof Short || value instanceof Byte) return INT32;
+        if(value instanceof Long) return INT64;
+        if(value instanceof Float) return FLOAT32;
+        if(value instanceof Double) return FLOAT64;
+        if(value instanceof BigDecimal) return DECIMAL;
+        if(value instanceof Boolean) return BOOLEAN;
+        if(value instanceof LocalDate) return DATE;
+        if(value instanceof LocalDateTime) return TIMESTAMP;
+        if(value instanceof byte[]) return BINARY;
+        
+        return STRING;
+    }
+    
+    private static byte merge(byte type, byte next)
+    {
+        if(type == next || next == NULL) return type;
+        if(type == NULL) return next;
+        if(isInteger(type) && isInteger(next)) return INT64;
+        if((isInteger(type) || isFloatingPoint(type)) && (isInteger(next) || isFloatingPoint(next))) return FLOAT64;
+        
+        // Anything else can only be stored as text
+        return STRING;
+    }
+    
+    private static class Group
+    {
+        private final int rows;
+        private final long[] offsets;
+        private final int[] lengths;
+
+        public Group(int rows, int columns)
+        {
+            this.rows = rows;
+            this.offsets = new long[columns];
+            this.lengths = new int[columns];
+        }
+    }
+    
+    private class ColumnarCursor implements OutputCursor
+    {
+        private final OutputStream out;
+        private final ChunkEncoder encoder = new ChunkEncoder();
+        
+        private final List<String> names = new ArrayList<>();
+        private final Map<String,Integer> indexes = new HashMap<>();
+        private final List<Object[]> columns = new ArrayList<>();
+        private final List<Group> groups = new ArrayList<>();
+        
+        private long position;
+        private int rows;
+
+        public ColumnarCursor(OutputStream out)
+        {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+            
+            try
+            {
+                this.out.write(MAGIC);
+                
+                position = MAGIC.length;
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+        
+        private void flush() throws IOException
+        {
+            var group = new Group(rows, columns.size());
+            Object[] values;
+            
+            for(var i=0; i<columns.size(); i++)
+            {
+                values = columns.get(i);
+                
+                encoder.reset();
+                encoder.encode(values, rows);
+                encoder.writeTo(out);
+                
+                group.offsets[i] = position;
+                group.lengths[i] = encoder.size();
+                position += encoder.size();
+                
+                Arrays.fill(values, 0, rows, null);
+            }
+            
+            groups.add(group);
+            
+            rows = 0;
+        }
+
+        @Override
+        public void write(JSONObject record)
+        {
+            Integer index;
+            
+            for(var entry : record.entrySet())
+            {
+                index = indexes.get(entry.getKey());
+                
+                // Columns first seen part way through are null in earlier rows
+                if(index == null)
+                {
+                    index = names.size();
+                    
+                    names.add(entry.getKey());
+                    indexes.put(entry.getKey(), index);
+                    columns.add(new Object[groupSize]);
+                }
+                
+                columns.get(index)[rows] = entry.getValue();
+            }
+            
+            if(++rows < groupSize) return;
+            
+            try
+            {
+                flush();
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try(out)
+            {
+                if(rows > 0) flush();
+                
+                encoder.reset();
+                encoder.writeVarLong(names.size());
+                
+                for(String name : names) encoder.writeBytes(name.getBytes(StandardCharsets.UTF_8));
+                
+                encoder.writeVarLong(groups.size());
+                
+                for(Group group : groups)
+                {
+                    encoder.writeVarLong(group.rows);
+                    encoder.writeVarLong(group.offsets.length);
+                    
+                    for(var i=0; i<group.offsets.length; i++)
+                    {
+                        encoder.writeVarLong(group.offsets[i]);
+                        encoder.writeVarLong(group.lengths[i]);
+                    }
+                }
+                
+                encoder.writeFixed(position, 8);
+                encoder.write(MAGIC);
+                encoder.writeTo(out);
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+    }
+    
+    private static class ChunkEncoder extends ByteArrayOutputStream
+    {
+        public ChunkEncoder()
+        {
+            super(64 * 1024);
+        }
+        
+        private static int getVarLongSize(long value)
+        {
+            var size = 1;
+            
+            while((value >>>= 7) != 0) size++;
+            
+            return size;
+        }
+        
+        private static long zigZag(long value)
+        {
+            return (value << 1) ^ (value >> 63);
+        }
+        
+        public void writeVarLong(long value)
+        {
+            while((value & ~0x7FL) != 0)
+            {
+                write((int)((value & 0x7F) | 0x80));
+                
+                value >>>= 7;
+            }
+            
+            write((int)value);
+        }
+        
+        public void writeFixed(long value, int width)
+        {
+            for(var i=width-1; i>=0; i--) write((int)(value >>> (i * 8)));
+        }
+        
+        public void writeBytes(byte[] value)
+        {
+            writeVarLong(value.length);
+            write(value, 0, value.length);
+        }
+        
+        private void writeValue(byte type, long value)
+        {
+            if(type == FLOAT32) writeFixed(value, 4);
+            else if(type == FLOAT64) writeFixed(value, 8);
+            else writeVarLong(zigZag(value));
+        }
+        
+        private static long getValueSize(byte type, long value)
+        {
+            if(type == FLOAT32) return 4;
+            if(type == FLOAT64) return 8;
+            
+            return getVarLongSize(zigZag(value));
+        }
+        
+        /**
+         * Works out the size of the values in each encoding. Delta encoding
+         * is not used for floating point values.
+         * 
+         * @return the sizes indexed by PLAIN, DELTA and RUN_LENGTH
+         */
+        private static long[] getSizes(byte type, long[] values)
+        {
+            var sizes = new long[3];
+            var start = 0;
+            
+            if(isFloatingPoint(type)) sizes[DELTA] = Long.MAX_VALUE;
+            
+            for(var i=0; i<values.length; i++)
+            {
+                sizes[PLAIN] += getValueSize(type, values[i]);
+                
+                if(!isFloatingPoint(type)) sizes[DELTA] += getVarLongSize(zigZag(i > 0 ? values[i] - values[i-1] : values[i]));
+                
+                if(values[i] != values[start])
+                {
+                    sizes[RUN_LENGTH] += getValueSize(type, values[start]) + getVarLongSize(i - start);
+                    start = i;
+                }
+            }
+            
+            if(values.length > 0) sizes[RUN_LENGTH] += getValueSize(type, values[start]) + getVarLongSize(values.length - start);
+            
+            return sizes;
+        }
+        
+        private static byte getSmallest(long[] sizes)
+        {
+            byte smallest = PLAIN;
+            
+            // Ties go to plain, which is the fastest to decode
+            for(byte i=1; i<sizes.length; i++)
+            {
+                if(sizes[i] < sizes[smallest]) smallest = i;
+            }
+            
+            return smallest;
+        }
+        
+        private void encodeLongs(byte type, long[] values)
+        {
+            var encoding = getSmallest(getSizes(type, values));
+            var start = 0;
+            
+            write(encoding);
+            
+            switch(encoding)
+            {
+                case PLAIN:
+                    for(var value : values) writeValue(type, value);
+                    break;
+                    
+                case DELTA:
+                    for(var i=0; i<values.length; i++) writeVarLong(zigZag(i > 0 ? values[i] - values[i-1] : values[i]));
+                    break;
+                    
+                case RUN_LENGTH:
+                    for(var i=1; i<=values.length; i++)
+                    {
+                        if(i < values.length && values[i] == values[start]) continue;
+                        
+                        writeValue(type, values[start]);
+                        writeVarLong(i - start);
+                        
+                        start = i;
+                    }
+                    break;
+            }
+        }
+        
+        private void encodeBytes(byte[][] values)
+        {
+            var dictionary = new HashMap<ByteBuffer,Integer>();
+            var entries = new ArrayList<byte[]>();
+            var indexes = new long[values.length];
+            var plain = 0L;
+            var encoded = 0L;
+            
+            Integer index;
+            
+            for(var i=0; i<values.length; i++)
+            {
+                plain += getVarLongSize(values[i].length) + values[i].length;
+                
+                // Stop building the dictionary once it can't pay for itself
+                if(entries.size() > values.length / 2) continue;
+                
+                index = dictionary.get(ByteBuffer.wrap(values[i]));
+                
+                if(index == null)
+                {
+                    index = entries.size();
+                    
+                    dictionary.put(ByteBuffer.wrap(values[i]), index);
+                    entries.add(values[i]);
+                    
+                    encoded += getVarLongSize(values[i].length) + values[i].length;
+                }
+                
+                indexes[i] = index;
+            }
+            
+            if(entries.size() <= values.length / 2)
+            {
+                var sizes = getSizes(INT32, indexes);
+                
+                encoded += getVarLongSize(entries.size()) + 1 + sizes[getSmallest(sizes)];
+                
+                if(encoded < plain)
+                {
+                    write(DICTIONARY);
+                    writeVarLong(entries.size());
+
+                    for(var entry : entries) writeBytes(entry);
+
+                    encodeLongs(INT32, indexes);
+
+                    return;
+                }
+            }
+            
+            write(PLAIN);
+            
+            for(var value : values) writeBytes(value);
+        }
+        
+        private static int getScale(Object[] values, int rows)
+        {
+            var scale = 0;
+            
+            for(var i=0; i<rows; i++)
+            {
+                if(values[i] != null) scale = Math.max(scale, ((BigDecimal)values[i]).scale());
+            }
+            
+            for(var i=0; i<rows; i++)
+            {
+                if(values[i] == null) continue;
+                
+                // Unscaled values must fit in a long
+                if(((BigDecimal)values[i]).setScale(scale).unscaledValue().bitLength() > 63) return -1;
+            }
+            
+            return scale;
+        }
+        
+        private static long toLong(byte type, Object value, int scale)
+        {
+            LocalDateTime timestamp;
+            
+            switch(type)
+            {
+                case FLOAT32:
+                    return Float.floatToIntBits(((Number)value).floatValue());
+                    
+                case FLOAT64:
+                    return Double.doubleToLongBits(((Number)value).doubleValue());
+                    
+                case DECIMAL:
+                    return ((BigDecimal)value).setScale(scale).unscaledValue().longValue();
+                    
+                case BOOLEAN:
+                    return ((Boolean)value) ? 1 : 0;
+                    
+                case DATE:
+                    return ((LocalDate)value).toEpochDay();
+                    
+                case TIMESTAMP:
+                    timestamp = (LocalDateTime)value;
+                    
+                    return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1000;
+                    
+                default:
+                    return ((Number)value).longValue();
+            }
+        }
+        
+        public void encode(Object[] values, int rows)
+        {
+            byte type = NULL;
+            int count = 0;
+            int scale = 0;
+            int index = 0;
+            byte[] bitmap;
+            
+            for(var i=0; i<rows; i++)
+            {
+                if(values[i] == null) continue;
+                
+                type = merge(type, getType(values[i]));
+                count++;
+            }
+            
+            if(type == DECIMAL) scale = getScale(values, rows);
+            if(scale < 0) type = STRING;
+            
+            write(type);
+            
+            if(type == NULL) return;
+            
+            if(count < rows)
+            {
+                bitmap = new byte[(rows + 7) / 8];
+                
+                for(var i=0; i<rows; i++)
+                {
+                    if(values[i] != null) bitmap[i >> 3] |= 1 << (i & 7);
+                }
+                
+                write(1);
+                write(bitmap, 0, bitmap.length);
+            }
+            else
+            {
+                write(0);
+            }
+            
+            writeVarLong(count);
+            
+            if(type == STRING || type == BINARY)
+            {
+                var bytes = new byte[count][];
+                
+                for(var i=0; i<rows; i++)
+                {
+                    if(values[i] == null) continue;
+                    if(type == BINARY) bytes[index++] = (byte[])values[i];
+                    else bytes[index++] = values[i].toString().getBytes(StandardCharsets.UTF_8);
+                }
+                
+                encodeBytes(bytes);
+            }
+            else
+            {
+                var longs = new long[count];
+                
+                for(var i=0; i<rows; i++)
+                {
+                    if(values[i] != null) longs[index++] = toLong(type, values[i], scale);
+                }
+                
+                if(type == DECIMAL) writeVarLong(scale);
+                
+                encodeLongs(type, longs);
+            }
+        }
+    }
+}
@@ -22,15 +22,11 @@ SOFTWARE.
 package com.invirgance.example.olap;
 
 import com.invirgance.convirgance.ConvirganceException;
-import com.invirgance.convirgance.input.PipeDelimitedInput;
-import com.invirgance.convirgance.json.JSONObject;
-import com.invirgance.convirgance.output.CSVOutput;
-import com.invirgance.convirgance.output.JBINOutput;
-import com.invirgance.convirgance.output.JSONOutput;
-import com.invirgance.convirgance.source.FileSource;
 import com.invirgance.convirgance.target.FileTarget;
 import com.invirgance.convirgance.transform.CoerceStringsTransformer;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -38,6 +34,231 @@ import java.io.File;
  */
 public class ConvertData implements Tool
 {
+    private OutputFormat[] formats = OutputFormat.values();
+    private int parseThreads = 1;
+    private boolean ordered = true;
+    private boolean typed = true;
+    private int compressThreads = 0;
+    private Manifest manifest;
+    private boolean force;
+    private String[] partitionBy;
+    private int openPartitions = 16;
+
+    public OutputFormat[] getFormats()
+    {
+        return formats;
+    }
+
+    public void setFormats(OutputFormat... formats)
+    {
+        this.formats = formats;
+    }
+    
+    public int getParseThreads()
+    {
+        return parseThreads;
+    }
+
+    public void setParseThreads(int parseThreads)
+    {
+        this.parseThreads = parseThreads;
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+    
+    public boolean isTyped()
+    {
+        return typed;
+    }
+
+    /**
+     * @param typed true to convert values to the types declared in the DDL,
+     *        false to infer types from the values
+     */
+    public void setTyped(boolean typed)
+    {
+        this.typed = typed;
+    }
+    
+    public int getCompressThreads()
+    {
+        return compressThreads;
+    }
+
+    /**
+     * @param compressThreads number of threads gzip compressing each output 
+     *        file, or zero to write uncompressed files
+     */
+    public void setCompressThreads(int compressThreads)
+    {
+        this.compressThreads = compressThreads;
+    }
+    
+    public Manifest getManifest()
+    {
+        return manifest;
+    }
+
+    /**
+     * @param manifest manifest used to skip formats whose files are up to
+     *        date and updated as files are written, or null to always convert
+     */
+    public void setManifest(Manifest manifest)
+    {
+        this.manifest = manifest;
+    }
+
+    public boolean isForce()
+    {
+        return force;
+    }
+
+    /**
+     * @param force true to convert tables even if the manifest shows that 
+     *        their files are up to date
+     */
+    public void setForce(boolean force)
+    {
+        this.force = force;
+    }
+    
+    public String[] getPartitionBy()
+    {
+        return partitionBy;
+    }
+
+    /**
+     * Fact tables with one of the date columns are written as a directory
+     * of year=YYYY/month=MM partitions rather than a single file. Other
+     * tables are written as usual.
+     * 
+     * @param partitionBy the date columns to partition by in order of 
+     *        preference, or null to write every table as a single file
+     */
+    public void setPartitionBy(String... partitionBy)
+    {
+        this.partitionBy = partitionBy;
+    }
+
+    public int getOpenPartitions()
+    {
+        return openPartitions;
+    }
+
+    /**
+     * @param openPartitions the maximum number of partitions open at once 
+     *        while writing a partitioned table
+     */
+    public void setOpenPartitions(int openPartitions)
+    {
+        this.openPartitions = openPartitions;
+    }
+    
+    /**
+     * @param create the table
+     * @return the column the table is partitioned by, or null if the table
+     *         is written as a single file
+     */
+    public String getPartitionColumn(TableExtractor.CreateTable create)
+    {
+        if(partitionBy == null || !LoadDatabase.isFact(create)) return null;
+        
+        for(String name : partitionBy)
+        {
+            for(var column : create.columns)
+            {
+                if(column.name.equalsIgnoreCase(name.trim())) return column.name;
+            }
+        }
+        
+        return null;
+    }
+    
+    private String getSettings(OutputFormat format, TableExtractor.CreateTable create)
+    {
+        var column = getPartitionColumn(create);
+        var compressed = (compressThreads > 0 && format.isCompressible());
+        
+        // Partitioned tables share one marker file whether or not their parts are compressed
+        return (typed ? "typed" : "untyped") + (ordered ? "" : ",unordered") + (compressed ? ",gzip" : "") + (column == null ? "" : ",partition=" + column);
+    }
+    
+    private File getFile(OutputFormat format, TableExtractor.CreateTable create)
+    {
+        var table = create.getTableName();
+        
+        // Partitioned tables are recorded by a marker written once every partition is complete
+        if(getPartitionColumn(create) != null) return new File(format.getPartitionDirectory(OutputFormat.DEFAULT_DIRECTORY, table), "_SUCCESS");
+        
+        return format.getFile(table, compressThreads > 0 && format.isCompressible());
+    }
+    
+    private static long getSize(File file)
+    {
+        var size = 0L;
+        
+        if(!file.isDirectory()) return file.length();
+        
+        for(File child : file.listFiles()) size += getSize(child);
+        
+        return size;
+    }
+    
+    private static void delete(File file)
+    {
+        if(file.isDirectory())
+        {
+            for(File child : file.listFiles()) delete(child);
+        }
+        
+        file.delete();
+    }
+    
+    /**
+     * Removes the table's files in the layout that isn't being written so 
+     * that a stale copy can't be read back by mistake.
+     */
+    private void clean(OutputFormat format, String table, boolean partitioned)
+    {
+        var directory = format.getPartitionDirectory(OutputFormat.DEFAULT_DIRECTORY, table);
+        
+        // Old partitions are removed too, as the new data may not cover them
+        delete(directory);
+        
+        if(!partitioned) return;
+        
+        format.getFile(table, false).delete();
+        format.getFile(table, true).delete();
+    }
+    
+    /**
+     * @param create the table
+     * @return the selected formats whose files are missing or out of date
+     */
+    public List<OutputFormat> getStaleFormats(TableExtractor.CreateTable create)
+    {
+        var stale = new ArrayList<OutputFormat>();
+        var raw = TableScheduler.getRawFile(create);
+        
+        for(OutputFormat format : formats)
+        {
+            if(force || manifest == null || !manifest.isCurrent(getFile(format, create), create, raw, getSettings(format, create)))
+            {
+                stale.add(format);
+            }
+        }
+        
+        return stale;
+    }
+    
     public void convert(String table)
     {
         var create = TableExtractor.getCreateTable(table);
@@ -49,21 +270,79 @@ public class ConvertData implements Tool
     {
         var table = create.getTableName();
         var columns = create.getColumnNames();
+        var stale = getStaleFormats(create);
+        var column = getPartitionColumn(create);
         
-        var source = new FileSource("AdventureWorks/raw/" + table + ".csv");
-        var input = new PipeDelimitedInput(columns, "UTF-16"); // <- UTF-16 with BOM!
+        var source = TableScheduler.getRawSource(create);
+        var input = new ParallelPipeInput(parseThreads, columns); // <- UTF-16 with BOM!
         
-        var json = new FileTarget("AdventureWorks/json/" + table + ".json");
-        var csv = new FileTarget("AdventureWorks/csv/" + table + ".csv");
-        var jbin = new FileTarget("AdventureWorks/jbin/" + table + ".bin");
+        var metrics = Metrics.getCurrent();
+        var read = metrics.getStage(table, "read");
+        var transform = metrics.getStage(table, "transform");
+        var write = metrics.getStage(table, "write");
+        var transformer = transform.time(typed ? new SchemaTransformer(create) : new CoerceStringsTransformer());
+        var outputs = new MultiOutputCursor();
         
-        Iterable<JSONObject> stream = input.read(source);
+        if(stale.isEmpty()) return;
+        if(!TableScheduler.getRawFile(create).exists()) throw new ConvirganceException("Table " + table + " has no raw data to convert!");
         
-        stream = new CoerceStringsTransformer().transform(stream);
+        input.setOrdered(ordered);
+        input.setInterned(SchemaTransformer.getCharacterColumns(create));
         
-        new JSONOutput().write(json, stream);
-        new CSVOutput().write(csv, stream);
-        new JBINOutput().write(jbin, stream);
+        // Parse threads transform their own records, otherwise the transform gets a stage of its own
+        if(parseThreads > 1) input.setTransformer(transformer);
+        
+        read.addBytesRead(TableScheduler.getRawFile(create).length());
+        
+        // Parse once and hand each record to every selected format
+        try(var pipeline = new Pipeline(read.time(input.read(source)), (parseThreads > 1) ? null : transformer);
+            var cursor = write.time(outputs))
+        {
+            pipeline.setStages(read, transform, write);
+            
+            for(OutputFormat format : stale)
+            {
+                clean(format, table, column != null);
+                
+                if(column == null) outputs.add(format.write(table, compressThreads));
+            }
+            
+            // Each partition fans out to every format, so the open file count is bounded per partition
+            if(column != null)
+            {
+                outputs.add(new PartitionedOutputCursor(column, openPartitions, (partition, part) -> {
+                    var cursors = new MultiOutputCursor();
+                    
+                    for(OutputFormat format : stale)
+                    {
+                        cursors.add(format.write(OutputFormat.DEFAULT_DIRECTORY, table, partition, part, compressThreads));
+                    }
+                    
+                    return cursors;
+                }));
+            }
+            
+            cursor.write(pipeline);
+            
+            read.addHeapSaved(input.getHeapSaved());
+        }
+        catch(RuntimeException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        for(OutputFormat format : stale)
+        {
+            if(column != null) new FileTarget(getFile(format, create)).writeString("");
+            
+            write.addBytesWritten(getSize((column != null) ? format.getPartitionDirectory(OutputFormat.DEFAULT_DIRECTORY, table) : getFile(format, create)));
+            
+            if(manifest != null) manifest.update(getFile(format, create), create, TableScheduler.getRawFile(create), getSettings(format, create));
+        }
     }
 
     @Override
@@ -75,49 +354,101 @@ public class ConvertData implements Tool
     @Override
     public void execute(String[] args)
     {
+        var options = new Options(args, "unordered", "untyped", "compress", "force");
+        var name = options.getArgument(1);
+        var tables = new ArrayList<TableExtractor.CreateTable>();
+        var current = 0;
+        
         TableExtractor.CreateTable table;
         
-        if(args.length > 1)
+        setFormats(OutputFormat.getFormats(options.getList("formats", "json", "csv", "jbin", "columnar")));
+        setParseThreads(options.getInt("parse-threads", 1));
+        setOrdered(!options.has("unordered"));
+        setTyped(!options.has("untyped"));
+        setCompressThreads(options.has("compress") ? options.getInt("compress-threads", Runtime.getRuntime().availableProcessors()) : 0);
+        setManifest(Manifest.read(Manifest.DEFAULT_FILE));
+        setForce(options.has("force"));
+        setPartitionBy(options.has("partition-by") ? options.getList("partition-by") : null);
+        setOpenPartitions(options.getInt("open-partitions", 16));
+        
+        if(parseThreads < 1) throw new ConvirganceException("Parse thread count must be at least 1");
+        if(options.has("compress") && compressThreads < 1) throw new ConvirganceException("Compress thread count must be at least 1");
+        if(openPartitions < 1) throw new ConvirganceException("Open partition count must be at least 1");
+        
+        if(name != null)
         {
-            table = TableExtractor.getCreateTable(args[1]);
+            table = TableExtractor.getCreateTable(name);
             
-            if(table == null) throw new ConvirganceException("Table " + args[1] + " not found!");
-            
-            convert(table);
+            if(table == null) throw new ConvirganceException("Table " + name + " not found!");
+            if(getStaleFormats(table).isEmpty()) System.out.println(table.getTableName() + " is up to date");
+            else convert(table);
             
             return;
         }
         
         for(var create : TableExtractor.getCreateTables())
         {
-            System.out.print("Converting " + create.getTableName() + "... ");
-            
             // Some tables do not have data
-            if(!new File("AdventureWorks/raw/" + create.getTableName() + ".csv").exists()) 
-            {
-                System.out.println("Done");
-                
-                continue;
-            }
-            
-            convert(create);
+            if(!TableScheduler.getRawFile(create).exists()) continue;
             
-            System.out.println("Done");
+            if(getStaleFormats(create).isEmpty()) current++;
+            else tables.add(create);
         }
+        
+        if(current > 0) System.out.println("Skipping " + current + " tables that are up to date");
+        
+        new TableScheduler(options.getInt("threads", 1)).execute("Converting", tables, this::convert);
     }
 
     @Override
     public String getHelp()
     {
         return """
-                convert [table]
+                convert [table] [--formats json,csv,jbin,columnar] [--threads n]
+                        [--parse-threads n] [--unordered] [--untyped]
+                        [--compress] [--compress-threads n] [--force]
+                        [--partition-by column[,column]] [--open-partitions n]
                 
                     Converts the raw data into various formats such as CSV, JSON,
-                    and JBIN. All data is converted unless the table name is
-                    specified.
+                    JBIN, and a columnar format. All data is converted unless the
+                    table name is specified.
 
                     Data is output to new directories under AdventureWorks/<format>.
+                    Files are only written if they are missing or their raw file,
+                    table definition, settings or the tool version have changed
+                    since they were recorded in AdventureWorks/manifest.json.
 
-                    table - (Optional) Specify the name of the table to convert""";
+                    table - (Optional) Specify the name of the table to convert
+                    --formats - (Optional) Comma separated list of the formats to
+                                write. Defaults to json,csv,jbin,columnar
+                    --threads - (Optional) Number of tables to convert at the
+                                same time. Defaults to 1
+                    --parse-threads - (Optional) Number of threads parsing each
+                                      large raw file. Defaults to 1
+                    --unordered - (Optional) Write records in the order the
+                                  parse threads produce them rather than the
+                                  order of the raw file
+                    --untyped - (Optional) Infer the type of each value from its
+                                contents instead of using the column types
+                                declared in the DDL. JBIN has no decimal
+                                type, so typed decimals are written to it
+                                as doubles and may lose precision
+                    --compress - (Optional) Gzip the JSON, CSV and JBIN files.
+                                 Files are written with a .gz extension
+                    --compress-threads - (Optional) Number of threads
+                                         compressing each file. Defaults to
+                                         the number of processors
+                    --force - (Optional) Convert tables even if they are up to
+                              date
+                    --partition-by - (Optional) Comma separated list of date
+                                     columns such as DateKey. Fact tables with
+                                     one of them are written to
+                                     <format>/<table>/year=YYYY/month=MM/
+                                     part files instead of a single file
+                    --open-partitions - (Optional) Number of partitions kept
+                                        open while writing a partitioned
+                                        table. The least recently used is
+                                        closed when another is needed.
+                                        Defaults to 16""";
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.dbms.DBMS;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import javax.sql.DataSource;
+
+/**
+ * Loads Derby tables with SYSCS_UTIL.SYSCS_IMPORT_TABLE from a staged UTF-8
+ * CSV file. The import is performed by the database process, so the staging
+ * directory must be readable by the server. This is always true for embedded
+ * databases and for a network server on the same machine.
+ * 
+ * @author jbanes
+ */
+public class DerbyBulkLoader implements BulkLoader
+{
+    private File staging = new File(System.getProperty("java.io.tmpdir"));
+
+    public File getStaging()
+    {
+        return staging;
+    }
+
+    public void setStaging(File staging)
+    {
+        this.staging = staging;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "derby";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:derby:");
+    }
+    
+    private File stage(TableExtractor.CreateTable create, Iterable<JSONObject> records) throws IOException
+    {
+        var file = File.createTempFile(create.getTableName() + "-", ".csv", staging);
+        
+        // Derby reads BLOB columns from hex, so no prefix is needed
+        try(var reader = new CSVRecordReader(records, create.getColumnNames(), "");
+            var writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+        {
+            reader.transferTo(writer);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            file.delete();
+            throw e;
+        }
+        
+        return file;
+    }
+
+    @Override
+    public void load(DataSource source, TableExtractor.CreateTable create, Iterable<JSONObject> records)
+    {
+        File file;
+        
+        try
+        {
+            file = stage(create, records);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        try
+        {
+            new DBMS(source).update(connection -> {
+                
+                try(var statement = connection.prepareCall("CALL SYSCS_UTIL.SYSCS_IMPORT_TABLE(?, ?, ?, ?, ?, ?, ?)"))
+                {
+                    statement.setString(1, null); // Current schema
+                    statement.setString(2, create.getTableName().toUpperCase(Locale.ROOT));
+                    statement.setString(3, file.getAbsolutePath());
+                    statement.setString(4, ",");
+                    statement.setString(5, "\"");
+                    statement.setString(6, "UTF-8");
+                    statement.setShort(7, (short)0); // Append rather than replace
+                    statement.execute();
+                }
+            });
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+/**
+ * Apache Derby has no tinyint, so small integers and flags become smallint.
+ * Unbounded text becomes a clob rather than being cut off at a fixed 
+ * length, and binary columns use the for bit data types.
+ * 
+ * @author jbanes
+ */
+public class DerbyDialect extends StandardDialect
+{
+    @Override
+    public String getName()
+    {
+        return "derby";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:derby:");
+    }
+
+    @Override
+    public String getType(TableExtractor.CreateColumn column)
+    {
+        switch(column.getBaseType())
+        {
+            case "bit":
+            case "tinyint":
+            case "smallint":
+                return "smallint";
+                
+            case "float":
+                return "double";
+                
+            case "varchar":
+            case "nvarchar":
+                return isMax(column) ? "clob" : "varchar" + column.getSize();
+                
+            case "sysname":
+                return "varchar(128)";
+                
+            case "xml":
+                return "clob";
+                
+            case "image":
+                return "blob";
+                
+            case "binary":
+                return "char" + column.getSize() + " for bit data";
+                
+            case "varbinary":
+                return isMax(column) ? "blob" : "varchar" + column.getSize() + " for bit data";
+                
+            default:
+                return super.getType(column);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.Source;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a gzip compressed file, including the multi-member files written by
+ * GZIPTarget.
+ * 
+ * @author jbanes
+ */
+public class GZIPSource implements Source
+{
+    private File file;
+
+    public GZIPSource(String path)
+    {
+        this(new File(path));
+    }
+    
+    public GZIPSource(File file)
+    {
+        this.file = file;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    @Override
+    public boolean isReusable()
+    {
+        return true;
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+        try
+        {
+            return new MemberInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024));
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    /**
+     * GZIPInputStream reports nothing available at the end of each member,
+     * which readers polling ready() take to be the end of the stream. Reading
+     * one byte ahead gives an accurate answer.
+     */
+    private static class MemberInputStream extends PushbackInputStream
+    {
+        public MemberInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            var available = super.available();
+            var next = (available > 0) ? 0 : read();
+            
+            if(available > 0 || next < 0) return available;
+            
+            unread(next);
+            
+            return super.available();
+        }
+    }
+}
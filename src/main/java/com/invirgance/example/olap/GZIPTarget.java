@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.target.Target;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a gzip compressed file, compressing blocks of the output in 
+ * parallel with ParallelGZIPOutputStream.
+ * 
+ * @author jbanes
+ */
+public class GZIPTarget implements Target
+{
+    private File file;
+    private int threads;
+
+    public GZIPTarget(String path, int threads)
+    {
+        this(new File(path), threads);
+    }
+    
+    public GZIPTarget(File file, int threads)
+    {
+        this.file = file;
+        this.threads = threads;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    @Override
+    public OutputStream getOutputStream()
+    {
+        if(file.getParentFile() != null && !file.getParentFile().exists()) file.getParentFile().mkdirs();
+        
+        try
+        {
+            return new ParallelGZIPOutputStream(new FileOutputStream(file), threads);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+}
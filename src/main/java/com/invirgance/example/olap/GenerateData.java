@@ -0,0 +1,422 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.target.FileTarget;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Synthesizes a scaled up copy of the AdventureWorks data for load testing.
+ * See ScaledTable for how rows and keys are generated.
+ * 
+ * @author jbanes
+ */
+public class GenerateData implements Tool
+{
+    private long scale = 10;
+    private long dimensionScale = -1;
+    private long seed;
+    private int threads = 1;
+    private OutputFormat[] formats = new OutputFormat[0];
+    private int compressThreads;
+    private File directory = new File("generated/10x");
+    
+    private final Map<String,ScaledTable> tables = new LinkedHashMap<>();
+    private final Set<String> planning = new HashSet<>();
+
+    public long getScale()
+    {
+        return scale;
+    }
+
+    /**
+     * @param scale number of copies of each fact table
+     */
+    public void setScale(long scale)
+    {
+        if(scale < 1) throw new ConvirganceException("Scale must be at least 1");
+        
+        this.scale = scale;
+    }
+
+    /**
+     * @return number of copies of each dimension table. Defaults to the 
+     *         square root of the scale, so the facts per dimension row grow
+     *         along with the data.
+     */
+    public long getDimensionScale()
+    {
+        if(dimensionScale < 1) return Math.max(1, Math.round(Math.sqrt(scale)));
+        
+        return dimensionScale;
+    }
+
+    public void setDimensionScale(long dimensionScale)
+    {
+        this.dimensionScale = dimensionScale;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * @param threads number of threads generating the rows of each table
+     */
+    public void setThreads(int threads)
+    {
+        if(threads < 1) throw new ConvirganceException("Thread count must be at least 1");
+        
+        this.threads = threads;
+    }
+
+    public OutputFormat[] getFormats()
+    {
+        return formats;
+    }
+
+    /**
+     * @param formats the converted formats to write, or none to write raw 
+     *        files
+     */
+    public void setFormats(OutputFormat... formats)
+    {
+        this.formats = formats;
+    }
+    
+    public boolean isRaw()
+    {
+        return (formats.length == 0);
+    }
+
+    public int getCompressThreads()
+    {
+        return compressThreads;
+    }
+
+    /**
+     * @param compressThreads number of threads gzip compressing each output 
+     *        file, or zero to write uncompressed files
+     */
+    public void setCompressThreads(int compressThreads)
+    {
+        this.compressThreads = compressThreads;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * The data set is written to an AdventureWorks directory under this 
+     * directory, laid out the same way as the original. The other tools can 
+     * be run against it from this directory.
+     * 
+     * @param directory the output directory
+     */
+    public void setDirectory(File directory)
+    {
+        this.directory = directory;
+    }
+    
+    private File getDataDirectory()
+    {
+        return new File(directory, "AdventureWorks");
+    }
+    
+    /**
+     * Plans the scaled table, along with every table it refers to. The plans 
+     * of referenced tables are needed to know which keys they generate.
+     * 
+     * @param create the table
+     * @return the scaled table, or null if the table has no raw data
+     */
+    public synchronized ScaledTable getScaledTable(TableExtractor.CreateTable create)
+    {
+        var name = create.getTableName();
+        var raw = TableScheduler.getRawFile(create);
+        var input = new MappedPipeInput(create.getColumnNames());
+        
+        TableExtractor.CreateTable referenced;
+        ScaledTable table;
+        
+        if(tables.containsKey(name)) return tables.get(name);
+        if(!raw.exists() || !planning.add(name)) return null;
+        
+        for(var constraint : create.constraints)
+        {
+            if(!constraint.isForeignKey()) continue;
+            
+            referenced = TableExtractor.getCreateTable(constraint.getReferencedTableName());
+            
+            if(referenced != null && referenced != create) getScaledTable(referenced);
+        }
+        
+        table = new ScaledTable(create, input.read(TableScheduler.getRawSource(create)), LoadDatabase.isFact(create) ? scale : getDimensionScale(), seed, tables);
+        
+        tables.put(name, table);
+        planning.remove(name);
+        
+        return table;
+    }
+    
+    static File getRawFile(File directory, String table, boolean compressed)
+    {
+        return new File(directory, "raw/" + table + ".csv" + (compressed ? ".gz" : ""));
+    }
+    
+    /**
+     * Writes a raw file of a copy of the data set, replacing the file with 
+     * or without compression that may already be there.
+     * 
+     * @param directory the AdventureWorks directory of the copy
+     * @param create the table
+     * @param compressThreads number of threads gzip compressing the file, or
+     *        zero to write it uncompressed
+     * @return cursor writing the raw records
+     */
+    static OutputCursor writeRaw(File directory, TableExtractor.CreateTable create, int compressThreads)
+    {
+        var name = create.getTableName();
+        var compressed = (compressThreads > 0);
+        var output = new RawOutput(create.getColumnNames());
+        var file = getRawFile(directory, name, compressed);
+        
+        try
+        {
+            if(file.getCanonicalFile().equals(TableScheduler.getRawFile(create).getCanonicalFile()))
+            {
+                throw new ConvirganceException("Data can't be written over the raw data in " + file.getParent());
+            }
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        getRawFile(directory, name, !compressed).delete();
+        
+        if(compressed) return output.write(new GZIPTarget(file, compressThreads));
+        
+        return output.write(new FileTarget(file));
+    }
+    
+    public void generate(String table)
+    {
+        generate(TableExtractor.getCreateTable(table));
+    }
+    
+    public void generate(TableExtractor.CreateTable create)
+    {
+        var name = create.getTableName();
+        var table = getScaledTable(create);
+        
+        var metrics = Metrics.getCurrent();
+        var generate = metrics.getStage(name, "generate");
+        var write = metrics.getStage(name, "write");
+        var outputs = new MultiOutputCursor();
+        
+        if(table == null) throw new ConvirganceException("Table " + name + " has no raw data to generate from!");
+        
+        table.setThreads(threads);
+        
+        // Raw files are written from the strings, the other formats need the values typed
+        table.setTransformer(isRaw() ? null : metrics.getStage(name, "transform").time(new SchemaTransformer(create)));
+        
+        try(var cursor = write.time(outputs))
+        {
+            if(isRaw()) outputs.add(writeRaw(getDataDirectory(), create, compressThreads));
+            
+            for(OutputFormat format : formats)
+            {
+                outputs.add(format.write(getDataDirectory(), name, compressThreads));
+            }
+            
+            cursor.write(generate.time(table.read()));
+        }
+        catch(RuntimeException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        if(isRaw()) write.addBytesWritten(getRawFile(getDataDirectory(), name, compressThreads > 0).length());
+        
+        for(OutputFormat format : formats)
+        {
+            write.addBytesWritten(format.getFile(getDataDirectory(), name, compressThreads > 0 && format.isCompressible()).length());
+        }
+    }
+    
+    /**
+     * Copies the DDL into a copy of the data set, so the other tools can be
+     * run against the copy.
+     * 
+     * @param directory the AdventureWorks directory of the copy
+     */
+    static void copySchema(File directory)
+    {
+        var source = new File("AdventureWorks/raw/instawdbdw.sql");
+        var target = new File(directory, "raw/instawdbdw.sql");
+        
+        try
+        {
+            if(source.getCanonicalFile().equals(target.getCanonicalFile())) return;
+            
+            target.getParentFile().mkdirs();
+            
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "generate";
+    }
+
+    @Override
+    public void execute(String[] args)
+    {
+        var options = new Options(args, "compress");
+        var name = options.getArgument(1);
+        var names = options.getList("formats", "raw");
+        var selected = new ArrayList<TableExtractor.CreateTable>();
+        
+        TableExtractor.CreateTable table;
+        
+        setScale(options.getLong("scale", 10));
+        setDimensionScale(options.getLong("dimension-scale", -1));
+        setSeed(options.getLong("seed", 0));
+        setThreads(options.getInt("generate-threads", Runtime.getRuntime().availableProcessors()));
+        setFormats((names.length == 1 && names[0].trim().equalsIgnoreCase("raw")) ? new OutputFormat[0] : OutputFormat.getFormats(names));
+        setCompressThreads(options.has("compress") ? options.getInt("compress-threads", Runtime.getRuntime().availableProcessors()) : 0);
+        setDirectory(new File(options.get("output", "generated/" + scale + "x")));
+        
+        for(String format : names)
+        {
+            if(names.length > 1 && format.trim().equalsIgnoreCase("raw")) throw new ConvirganceException("The raw format can't be combined with other formats");
+        }
+        
+        if(options.has("compress") && compressThreads < 1) throw new ConvirganceException("Compress thread count must be at least 1");
+        
+        if(name != null)
+        {
+            table = TableExtractor.getCreateTable(name);
+            
+            if(table == null) throw new ConvirganceException("Table " + name + " not found!");
+            
+            selected.add(table);
+        }
+        else
+        {
+            for(var create : TableExtractor.getCreateTables())
+            {
+                // Some tables do not have data
+                if(TableScheduler.getRawFile(create).exists()) selected.add(create);
+            }
+        }
+        
+        // Plan every table up front so the generating threads only read the plans
+        for(var create : selected) getScaledTable(create);
+        
+        copySchema(getDataDirectory());
+        
+        System.out.println("Generating " + scale + "x facts and " + getDimensionScale() + "x dimensions into " + getDataDirectory());
+        
+        new TableScheduler(options.getInt("threads", 1)).execute("Generating", selected, this::generate);
+    }
+
+    @Override
+    public String getHelp()
+    {
+        return """
+                generate [table] [--scale n] [--dimension-scale n] [--seed n]
+                         [--output dir] [--formats raw|json,csv,jbin,columnar]
+                         [--threads n] [--generate-threads n]
+                         [--compress] [--compress-threads n]
+
+                    Synthesizes a larger copy of the data for load testing by
+                    repeating the rows of the raw files with new keys. Keys
+                    between tables stay consistent, so the result can be loaded
+                    with all of its constraints. The same seed always produces
+                    the same data. All tables are generated unless the table
+                    name is specified.
+
+                    The data is written to <dir>/AdventureWorks in the same
+                    layout as the original, so the other commands can be run
+                    on it from <dir>. Tables whose keys can't be changed, such
+                    as DimDate, are copied as they are.
+
+                    table - (Optional) Specify the name of the table to generate
+                    --scale - (Optional) Number of copies of the fact tables.
+                              Defaults to 10
+                    --dimension-scale - (Optional) Number of copies of the
+                                        dimension tables. Defaults to the
+                                        square root of the scale
+                    --seed - (Optional) Random seed. Defaults to 0
+                    --output - (Optional) Output directory. Defaults to
+                               generated/<scale>x
+                    --formats - (Optional) raw to write UTF-16 pipe-delimited
+                                raw files, or a comma separated list of json,
+                                csv, jbin and columnar. Defaults to raw
+                    --threads - (Optional) Number of tables to generate at the
+                                same time. Defaults to 1
+                    --generate-threads - (Optional) Number of threads
+                                         generating each table. Defaults to
+                                         the number of processors
+                    --compress - (Optional) Gzip the output files, except for
+                                 columnar files
+                    --compress-threads - (Optional) Number of threads
+                                         compressing each file. Defaults to
+                                         the number of processors""";
+    }
+}
@@ -31,6 +31,10 @@ import java.io.File;
  */
 public class GenerateSQL implements Tool
 {
+    private Manifest manifest;
+    private boolean force;
+    private SQLDialect dialect = StandardDialect.INSTANCE;
+    
     public String getInsertSQL(String table, String[] columns)
     {
         var buffer = new StringBuffer("insert into ");
@@ -59,57 +63,86 @@ public class GenerateSQL implements Tool
         return TableExtractor.getCreateTable(table).toSQL();
     }
     
-    public static String normalizeSQL(String sql)
+    public Manifest getManifest()
+    {
+        return manifest;
+    }
+
+    /**
+     * @param manifest manifest used to skip SQL files that are up to date 
+     *        and updated as files are written, or null to always generate
+     */
+    public void setManifest(Manifest manifest)
+    {
+        this.manifest = manifest;
+    }
+
+    public boolean isForce()
+    {
+        return force;
+    }
+
+    public void setForce(boolean force)
+    {
+        this.force = force;
+    }
+
+    public SQLDialect getDialect()
+    {
+        return dialect;
+    }
+
+    /**
+     * @param dialect the database to write the SQL for
+     */
+    public void setDialect(SQLDialect dialect)
+    {
+        this.dialect = dialect;
+    }
+    
+    /**
+     * @param create the table
+     * @return the create statement in the selected dialect
+     */
+    public String getSQL(TableExtractor.CreateTable create)
+    {
+        // The catalog already holds the standard statements
+        if(dialect == StandardDialect.INSTANCE) return TableExtractor.getNormalizedSQL(create);
+        
+        return create.toSQL(dialect);
+    }
+    
+    private boolean generate(TableExtractor.CreateTable create)
     {
-        sql = sql.replaceAll(" bit", " int");
-        sql = sql.replaceAll(" BIT", " INT");
-        sql = sql.replaceAll("datetime", "timestamp");
-        sql = sql.replaceAll("DATETIME", "TIMESTAMP");
-        sql = sql.replaceAll("nchar", "char");
-        sql = sql.replaceAll("NCHAR", "CHAR");
-        sql = sql.replaceAll("nvarchar", "varchar");
-        sql = sql.replaceAll("NVARCHAR", "VARCHAR");
-        sql = sql.replaceAll("money", "decimal(19, 4)");
-        sql = sql.replaceAll("MONEY", "DECIMAL(19, 4)");
-        sql = sql.replaceAll("varbinary\\(max\\)", "blob");
-        sql = sql.replaceAll("VARBINARY\\(MAX\\)", "BLOB");
-        sql = sql.replaceAll("varchar\\(max\\)", "varchar(4096)");
-        sql = sql.replaceAll("VARCHAR\\(MAX\\)", "VARCHAR(4096)");
-        sql = sql.replaceAll("Unknown ", "\"Unknown\" ");
-        sql = sql.replaceAll("n'", "'");
-        sql = sql.trim();
+        var file = new File("AdventureWorks/sql/" + create.getTableName() + ".sql");
+        var stage = Metrics.getCurrent().getStage(create.getTableName(), "write");
+        
+        if(!force && manifest != null && manifest.isCurrent(file, create, null, dialect.getName())) return false;
         
-        if(sql.charAt(sql.length()-1) == ';') sql = sql.substring(0, sql.length()-1);
+        stage.time(() -> new FileTarget(file).writeString(getSQL(create)));
+        stage.addBytesWritten(file.length());
         
-        return sql;
+        if(manifest != null) manifest.update(file, create, null, dialect.getName());
+        
+        return true;
     }
     
     public void generate()
     {
-        File file;
-        
         for(var create : TableExtractor.getCreateTables())
         {
             System.out.print("Generating " + create.getTableName() + "... ");
-
-            file = new File("AdventureWorks/sql/" + create.getTableName() + ".sql");
-
-            new FileTarget(file).writeString(normalizeSQL(create.toSQL()));
-
-            System.out.println("Done");
+            System.out.println(generate(create) ? "Done" : "Up to date");
         }
     }
     
     public void generate(String table)
     {
         TableExtractor.CreateTable create = TableExtractor.getCreateTable(table);
-        File file;
             
         if(create == null) throw new ConvirganceException("Table " + table + " not found!");
 
-        file = new File("AdventureWorks/sql/" + create.getTableName() + ".sql");
-
-        new FileTarget(file).writeString(normalizeSQL(create.toSQL()));
+        generate(create);
     }
 
     @Override
@@ -121,9 +154,15 @@ public class GenerateSQL implements Tool
     @Override
     public void execute(String[] args)
     {
-        if(args.length > 1)
+        var options = new Options(args, "force");
+        
+        setManifest(Manifest.read(Manifest.DEFAULT_FILE));
+        setForce(options.has("force"));
+        setDialect(SQLDialect.getDialect(options.get("dialect", "standard")));
+        
+        if(options.getArgument(1) != null)
         {
-            generate(args[1]);
+            generate(options.getArgument(1));
             
             return;
         }
@@ -135,13 +174,21 @@ public class GenerateSQL implements Tool
     public String getHelp()
     {
         return """
-                sql [table]
+                sql [table] [--dialect name] [--force]
                 
                     Outputs the SQL needed to recreate each table in the AdventureWorks
                     data set. All tables are exported unless the table name is specifed.
+                    Column types are mapped to the native types of the dialect.
 
-                    SQL files are written to AdventureWorks/sql/<table>.sql
+                    SQL files are written to AdventureWorks/sql/<table>.sql. Files
+                    are only written if the table definition or tool version has
+                    changed since they were recorded in AdventureWorks/manifest.json.
 
-                    table - (Optional) Specify the name of the table""";
+                    table - (Optional) Specify the name of the table
+                    --dialect - (Optional) One of standard, derby, postgresql,
+                                mysql, h2 or sqlite. The default of standard
+                                writes types that work on most databases
+                    --force - (Optional) Write the files even if they are up to
+                              date""";
     }
 }
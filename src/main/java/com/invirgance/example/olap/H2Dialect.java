@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+/**
+ * H2's tinyint is signed, so it only holds flags. SQL Server's unsigned 
+ * tinyint needs a smallint. Unbounded text is a varchar with no length 
+ * limit and binary data uses varbinary or blob.
+ * 
+ * @author jbanes
+ */
+public class H2Dialect extends StandardDialect
+{
+    @Override
+    public String getName()
+    {
+        return "h2";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    @Override
+    public String getType(TableExtractor.CreateColumn column)
+    {
+        switch(column.getBaseType())
+        {
+            case "bit":
+                return "tinyint";
+                
+            case "tinyint":
+            case "smallint":
+                return "smallint";
+                
+            case "int":
+                return "integer";
+                
+            case "money":
+                return "numeric(19, 4)";
+                
+            case "smallmoney":
+                return "numeric(10, 4)";
+                
+            case "float":
+                return "double precision";
+                
+            case "varchar":
+            case "nvarchar":
+                return isMax(column) ? "varchar" : "varchar" + column.getSize();
+                
+            case "sysname":
+                return "varchar(128)";
+                
+            case "xml":
+                return "varchar";
+                
+            case "image":
+                return "blob";
+                
+            case "binary":
+                return "binary" + column.getSize();
+                
+            case "varbinary":
+                return isMax(column) ? "blob" : "varbinary" + column.getSize();
+                
+            default:
+                return super.getType(column);
+        }
+    }
+}
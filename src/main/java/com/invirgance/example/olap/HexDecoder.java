@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+
+/**
+ * Table driven decoding of hex strings such as the image columns in the raw
+ * AdventureWorks files. Decoding works directly on the characters of the
+ * source and writes into a caller supplied buffer, so nothing is allocated
+ * per byte.
+ * 
+ * @author jbanes
+ */
+public class HexDecoder
+{
+    private static final byte[] DIGITS = new byte[128];
+    
+    static
+    {
+        java.util.Arrays.fill(DIGITS, (byte)-1);
+        
+        for(var c='0'; c<='9'; c++) DIGITS[c] = (byte)(c - '0');
+        for(var c='a'; c<='f'; c++) DIGITS[c] = (byte)(c - 'a' + 10);
+        for(var c='A'; c<='F'; c++) DIGITS[c] = (byte)(c - 'A' + 10);
+    }
+    
+    private static int digit(CharSequence hex, int index)
+    {
+        var c = hex.charAt(index);
+        var value = (c < 128) ? DIGITS[c] : -1;
+        
+        if(value < 0) throw new ConvirganceException("Invalid hex character '" + c + "' at position " + index);
+        
+        return value;
+    }
+    
+    /**
+     * Decodes bytes from the hex string into the buffer.
+     * 
+     * @param hex the hex characters
+     * @param position index of the first byte to decode, i.e. half the character offset
+     * @param buffer the buffer to decode into
+     * @param offset offset into the buffer
+     * @param length number of bytes to decode
+     */
+    public static void decode(CharSequence hex, long position, byte[] buffer, int offset, int length)
+    {
+        var index = (int)(position * 2);
+        
+        for(var i=offset; i<offset+length; i++)
+        {
+            buffer[i] = (byte)((digit(hex, index) << 4) | digit(hex, index+1));
+            index += 2;
+        }
+    }
+    
+    public static byte[] decode(CharSequence hex)
+    {
+        var data = new byte[hex.length()/2];
+        
+        decode(hex, 0, data, 0, data.length);
+        
+        return data;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import java.io.InputStream;
+
+/**
+ * Streams the bytes encoded in a hex string without materializing them. Used
+ * to bind large binary columns to JDBC with setBinaryStream() so the driver
+ * can copy them through its own buffers.
+ * 
+ * @author jbanes
+ */
+public class HexInputStream extends InputStream
+{
+    private final CharSequence hex;
+    private final long length;
+    private final byte[] single = new byte[1];
+    
+    private long position;
+
+    public HexInputStream(CharSequence hex)
+    {
+        this.hex = hex;
+        this.length = hex.length() / 2;
+    }
+
+    public long getLength()
+    {
+        return length;
+    }
+
+    @Override
+    public int read()
+    {
+        if(read(single, 0, 1) < 0) return -1;
+        
+        return single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count)
+    {
+        int available = (int)Math.min(count, length - position);
+        
+        if(count == 0) return 0;
+        if(available <= 0) return -1;
+        
+        HexDecoder.decode(hex, position, buffer, offset, available);
+        
+        position += available;
+        
+        return available;
+    }
+
+    @Override
+    public long skip(long count)
+    {
+        var skipped = Math.max(0, Math.min(count, length - position));
+        
+        position += skipped;
+        
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return (int)Math.min(Integer.MAX_VALUE, length - position);
+    }
+}
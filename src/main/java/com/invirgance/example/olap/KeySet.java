@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.json.JSONObject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set of the key values of a table, held as compactly as possible so that
+ * the memory used by a subset grows with the number of distinct keys rather 
+ * than the number of rows. Keys of a single integer column are stored as
+ * primitive longs in an open addressing table. Keys of several columns or 
+ * of character columns, such as the sales order numbers, are stored as 
+ * Strings.
+ * <br><br>
+ * Keys are given as they appear in the raw files. The values of a key with
+ * several columns are joined with pipes, which can't appear in a raw value.
+ * 
+ * @author jbanes
+ */
+public class KeySet
+{
+    private final boolean numeric;
+    
+    private long[] values = new long[16];
+    private int size;
+    private boolean zero;
+    private Set<String> strings;
+
+    /**
+     * @param numeric true if the key is a single integer column
+     */
+    public KeySet(boolean numeric)
+    {
+        this.numeric = numeric;
+    }
+
+    public boolean isNumeric()
+    {
+        return numeric;
+    }
+    
+    /**
+     * @param record a raw record
+     * @param columns the columns of the key
+     * @return the key of the record, or null if any of its columns is null
+     */
+    public static String getKey(JSONObject record, List<String> columns)
+    {
+        StringBuffer buffer;
+        Object value;
+        
+        if(columns.size() == 1)
+        {
+            value = record.get(columns.get(0));
+            
+            return (value == null) ? null : value.toString();
+        }
+        
+        buffer = new StringBuffer();
+        
+        for(String column : columns)
+        {
+            value = record.get(column);
+            
+            if(value == null) return null;
+            if(buffer.length() > 0) buffer.append('|');
+            
+            buffer.append(value);
+        }
+        
+        return buffer.toString();
+    }
+    
+    private static int hash(long value)
+    {
+        var hash = value * 0x9E3779B97F4A7C15L;
+        
+        return (int)(hash ^ (hash >>> 32));
+    }
+    
+    private static long parse(String key)
+    {
+        // Anything but a plain decimal integer is kept as a String
+        if(key.isEmpty() || key.length() > 18) return -1;
+        
+        for(var i=(key.charAt(0) == '-' && key.length() > 1) ? 1 : 0; i<key.length(); i++)
+        {
+            if(key.charAt(i) < '0' || key.charAt(i) > '9') return -1;
+        }
+        
+        return Long.parseLong(key);
+    }
+    
+    private boolean isParsed(String key, long value)
+    {
+        return (value != -1 || key.equals("-1"));
+    }
+    
+    private int find(long value)
+    {
+        var mask = values.length - 1;
+        var index = hash(value) & mask;
+        
+        while(values[index] != 0 && values[index] != value) index = (index + 1) & mask;
+        
+        return index;
+    }
+    
+    private void grow()
+    {
+        var old = values;
+        
+        values = new long[old.length * 2];
+        
+        for(long value : old)
+        {
+            if(value != 0) values[find(value)] = value;
+        }
+    }
+    
+    private boolean addString(String key)
+    {
+        if(strings == null) strings = new HashSet<>();
+        
+        return strings.add(key);
+    }
+    
+    /**
+     * @param key the key as it appears in the raw files, or null
+     * @return true if the key was not already in the set. Null keys are
+     *         never added.
+     */
+    public boolean add(String key)
+    {
+        long value;
+        int index;
+        
+        if(key == null) return false;
+        if(!numeric) return addString(key);
+        
+        value = parse(key);
+        
+        if(!isParsed(key, value)) return addString(key);
+        
+        if(value == 0)
+        {
+            if(zero) return false;
+            
+            return (zero = true);
+        }
+        
+        index = find(value);
+        
+        if(values[index] == value) return false;
+        
+        values[index] = value;
+        
+        if(++size * 2 > values.length) grow();
+        
+        return true;
+    }
+    
+    /**
+     * @param key the key as it appears in the raw files, or null
+     * @return true if the key is in the set. Null keys never are.
+     */
+    public boolean contains(String key)
+    {
+        long value;
+        
+        if(key == null) return false;
+        if(!numeric) return (strings != null && strings.contains(key));
+        
+        value = parse(key);
+        
+        if(!isParsed(key, value)) return (strings != null && strings.contains(key));
+        if(value == 0) return zero;
+        
+        return (values[find(value)] == value);
+    }
+    
+    public int size()
+    {
+        return size + (zero ? 1 : 0) + (strings == null ? 0 : strings.size());
+    }
+    
+    public boolean isEmpty()
+    {
+        return (size() == 0);
+    }
+}
@@ -22,10 +22,10 @@ SOFTWARE.
 package com.invirgance.example.olap;
 
 import com.invirgance.convirgance.ConvirganceException;
-import com.invirgance.convirgance.dbms.BatchOperation;
 import com.invirgance.convirgance.dbms.DBMS;
 import com.invirgance.convirgance.dbms.Query;
-import com.invirgance.convirgance.input.PipeDelimitedInput;
+import com.invirgance.convirgance.dbms.QueryOperation;
+import com.invirgance.convirgance.dbms.TransactionOperation;
 import com.invirgance.convirgance.jdbc.AutomaticDriver;
 import com.invirgance.convirgance.jdbc.AutomaticDrivers;
 import com.invirgance.convirgance.jdbc.StoredConnection;
@@ -33,10 +33,14 @@ import com.invirgance.convirgance.jdbc.datasource.DriverDataSource;
 import com.invirgance.convirgance.jdbc.schema.Catalog;
 import com.invirgance.convirgance.jdbc.schema.DatabaseSchemaLayout;
 import com.invirgance.convirgance.jdbc.schema.Schema;
+import com.invirgance.convirgance.json.JSONArray;
 import com.invirgance.convirgance.json.JSONObject;
-import com.invirgance.convirgance.source.FileSource;
 import com.invirgance.convirgance.transform.IdentityTransformer;
+import com.invirgance.convirgance.transform.filter.Filter;
 import java.io.File;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 import javax.sql.DataSource;
 
 /**
@@ -45,10 +49,55 @@ import javax.sql.DataSource;
  */
 public class LoadDatabase implements Tool
 {
+    private static final int STREAM_THRESHOLD = 8192;
+    
     private String url = "jdbc:derby://localhost:1527/sampling";
     private String username = "adventureworks";
     private String password = "adventureworks";
     
+    private int batchSize = 10000;
+    private int commitEvery = 0;
+    
+    private LoadJournal journal;
+    private String loaderName;
+    private String dialectName;
+    private boolean deferred = true;
+    private int parseThreads = 1;
+    private boolean ordered = true;
+    private boolean typed = true;
+    private int connections = 1;
+    private boolean atomic;
+    
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public int getCommitEvery()
+    {
+        return commitEvery;
+    }
+
+    public void setCommitEvery(int commitEvery)
+    {
+        this.commitEvery = commitEvery;
+    }
+    
+    public LoadJournal getJournal()
+    {
+        return journal;
+    }
+
+    public void setJournal(LoadJournal journal)
+    {
+        this.journal = journal;
+    }
+    
     public DatabaseSchemaLayout getSchema()
     {
         AutomaticDriver driver = AutomaticDrivers.getDriverByURL(url);
@@ -59,30 +108,273 @@ public class LoadDatabase implements Tool
     
     public DataSource getSource()
     {
-        return DriverDataSource.getDataSource(url, "adventureworks", "adventureworks");
+        return DriverDataSource.getDataSource(url, username, password);
+    }
+    
+    public String getLoaderName()
+    {
+        return loaderName;
+    }
+
+    public void setLoaderName(String loaderName)
+    {
+        this.loaderName = loaderName;
+    }
+    
+    public String getDialectName()
+    {
+        return dialectName;
+    }
+
+    /**
+     * @param dialectName name of the SQL dialect the tables are created in, 
+     *        or null to choose it from the JDBC URL
+     */
+    public void setDialectName(String dialectName)
+    {
+        this.dialectName = dialectName;
     }
     
-    public String getInsertSQL(String table, String[] columns)
+    public SQLDialect getDialect()
     {
-        var buffer = new StringBuffer("insert into ");
-        var first = true;
+        if(dialectName != null) return SQLDialect.getDialect(dialectName);
         
-        buffer.append(table);
-        buffer.append(" values (");
+        return SQLDialect.getDialectForURL(url);
+    }
+    
+    public boolean isDeferred()
+    {
+        return deferred;
+    }
+
+    /**
+     * Controls when primary keys, unique constraints and indexes are created. 
+     * Deferred creation loads the data into bare tables and builds them once
+     * the load is complete. Otherwise they are created with the tables and 
+     * maintained throughout the load. Foreign keys are always added after the
+     * load as self-referencing rows aren't in dependency order.
+     * 
+     * @param deferred true to create keys and indexes after the load
+     */
+    public void setDeferred(boolean deferred)
+    {
+        this.deferred = deferred;
+    }
+    
+    public int getParseThreads()
+    {
+        return parseThreads;
+    }
+
+    public void setParseThreads(int parseThreads)
+    {
+        this.parseThreads = parseThreads;
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+    
+    public boolean isTyped()
+    {
+        return typed;
+    }
+
+    /**
+     * @param typed true to convert values to the types declared in the DDL
+     *        before sending them to the database, false to send strings
+     */
+    public void setTyped(boolean typed)
+    {
+        this.typed = typed;
+    }
+    
+    public int getConnections()
+    {
+        return connections;
+    }
+
+    /**
+     * @param connections number of connections each table is loaded over.
+     *        The rows are split between them and each connection commits 
+     *        its own share
+     */
+    public void setConnections(int connections)
+    {
+        this.connections = connections;
+    }
+
+    public boolean isAtomic()
+    {
+        return atomic;
+    }
+
+    /**
+     * Loads each table into a bare staging table first, then copies the rows
+     * into the real table and drops the staging table in a single 
+     * transaction. The table is left empty if any part of the load fails.
+     * 
+     * @param atomic true to load each table all or nothing
+     */
+    public void setAtomic(boolean atomic)
+    {
+        this.atomic = atomic;
+    }
+    
+    public BulkLoader[] getLoaders()
+    {
+        var batch = new BatchInsertLoader();
         
-        for(var column : columns)
+        batch.setBatchSize(batchSize);
+        batch.setCommitEvery(commitEvery);
+        
+        return new BulkLoader[] {
+            new DerbyBulkLoader(),
+            new PostgresBulkLoader(),
+            batch
+        };
+    }
+    
+    /**
+     * Returns the loader selected by name, or the first loader that supports 
+     * the JDBC URL if no name has been set. Native loaders are only chosen
+     * automatically when no chunked commits have been requested, as only the
+     * batch loader can commit part of a table.
+     * 
+     * @return the loader to use for the database
+     */
+    public BulkLoader getLoader()
+    {
+        for(var loader : getLoaders())
         {
-            if(!first) buffer.append(", ");
-            
-            buffer.append(':');
-            buffer.append(column);
+            if(loaderName != null)
+            {
+                if(loader.getName().equalsIgnoreCase(loaderName)) return loader;
+            }
+            else if(commitEvery == 0 || loader instanceof BatchInsertLoader)
+            {
+                if(loader.isSupported(url)) return loader;
+            }
+        }
+        
+        throw new ConvirganceException("Unknown loader: " + loaderName);
+    }
+    
+    public String getCreateSQL(TableExtractor.CreateTable create)
+    {
+        return create.toSQL(getDialect(), !deferred);
+    }
+    
+    /**
+     * @param create the table to load
+     * @return the bare table the rows are loaded into before the swap
+     */
+    public TableExtractor.CreateTable getStagingTable(TableExtractor.CreateTable create)
+    {
+        return new TableExtractor.CreateTable(create.getTableName() + "_staging", create.columns);
+    }
+    
+    private void createStaging(TableExtractor.CreateTable staging)
+    {
+        // Clear out what an earlier failed run may have left behind
+        dropStaging(staging);
+        
+        new DBMS(getSource()).update(new Query(staging.toStagingSQL(getDialect())));
+    }
+    
+    private void dropStaging(TableExtractor.CreateTable staging)
+    {
+        try
+        {
+            new DBMS(getSource()).update(new Query("drop table " + staging.getTableName()));
+        }
+        catch(ConvirganceException e)
+        {
+            // The table doesn't exist
+        }
+    }
+    
+    /**
+     * Moves the loaded rows from the staging table into the real table and 
+     * drops the staging table in one transaction.
+     * 
+     * @param create the table being loaded
+     * @param staging the staging table holding its rows
+     */
+    public void swap(TableExtractor.CreateTable create, TableExtractor.CreateTable staging)
+    {
+        var dialect = getDialect();
+        var columns = new StringBuffer();
+        var insert = new StringBuffer("insert into ");
+        
+        // Quoted the same way as the create statements so that reserved words such as Unknown still work
+        for(var column : create.getColumnNames())
+        {
+            if(columns.length() > 0) columns.append(", ");
             
-            first = false;
+            columns.append(dialect.getIdentifier(column));
         }
         
-        buffer.append(")");
+        insert.append(dialect.getIdentifier(create.getTableName()));
+        insert.append(" (").append(columns).append(") select ").append(columns);
+        insert.append(" from ").append(dialect.getIdentifier(staging.getTableName()));
+        
+        new DBMS(getSource()).update(new TransactionOperation(
+            new QueryOperation(new Query(insert.toString())),
+            new QueryOperation(new Query("drop table " + staging.getTableName()))
+        ));
+    }
+    
+    private void apply(String name, String sql)
+    {
+        if(journal != null && journal.isApplied(name)) return;
+        
+        new DBMS(getSource()).update(new Query(sql));
+        
+        if(journal != null) journal.applied(name);
+    }
+    
+    /**
+     * Creates the indexes of a table and, when creation is deferred, its
+     * primary key and unique constraints.
+     * 
+     * @param create the table to index
+     */
+    public void addKeys(TableExtractor.CreateTable create)
+    {
+        if(deferred)
+        {
+            for(var constraint : create.constraints)
+            {
+                if(!constraint.isForeignKey()) apply(constraint.name, create.getAlterSQL(constraint));
+            }
+        }
         
-        return buffer.toString();
+        for(var index : create.indexes) apply(index.name, index.toSQL());
+    }
+    
+    /**
+     * Adds the foreign keys of a table, skipping any that reference a table
+     * not in the set of loaded tables.
+     * 
+     * @param create the table to constrain
+     * @param loaded lower case names of the loaded tables
+     */
+    public void addForeignKeys(TableExtractor.CreateTable create, Set<String> loaded)
+    {
+        for(var constraint : create.constraints)
+        {
+            if(!constraint.isForeignKey()) continue;
+            if(!loaded.contains(constraint.getReferencedTableName().toLowerCase(Locale.ROOT))) continue;
+            
+            apply(constraint.name, create.getAlterSQL(constraint));
+        }
     }
     
     public void load(String table)
@@ -95,28 +387,51 @@ public class LoadDatabase implements Tool
     public void load(TableExtractor.CreateTable create)
     {
         var columns = create.getColumnNames();
-        var sql = getInsertSQL(create.getTableName(), columns);
+        var loader = getLoader();
+        var target = atomic ? getStagingTable(create) : create;
+        
+        var source = TableScheduler.getRawSource(create);
+        var input = new ParallelPipeInput(parseThreads, columns); // <- UTF-16 with BOM!
+        var offset = (journal == null) ? 0 : journal.getRows(create.getTableName());
         
-        var source = new FileSource("AdventureWorks/raw/" + create.getTableName() + ".csv");
-        var input = new PipeDelimitedInput(columns, "UTF-16"); // <- UTF-16 with BOM!
+        var metrics = Metrics.getCurrent();
+        var read = metrics.getStage(create.getTableName(), "read");
+        var transform = metrics.getStage(create.getTableName(), "transform");
+        var write = metrics.getStage(create.getTableName(), "write");
+        var commit = metrics.getStage(create.getTableName(), "commit");
+        var rows = read.getRows();
+        var committed = commit.getNanos();
+        var elapsed = committed + write.getStarvedNanos();
+        var start = 0L;
         
         Iterable<JSONObject> stream;
+        IdentityTransformer transformer;
+        
+        var binary = SchemaTransformer.getBinaryColumns(create);
+        var schema = typed ? new SchemaTransformer(create) : null;
         
-        stream = input.read(source);
-        stream = new IdentityTransformer() {
+        if(schema != null) schema.setStreaming(true);
+        
+        // Hex is decoded straight from the mapped file
+        input.setViews(binary);
+        input.setInterned(SchemaTransformer.getCharacterColumns(create));
+        input.setOrdered(ordered);
+        
+        transformer = transform.time(new IdentityTransformer() {
             
-            private String[] binary = new String[]{ "EmployeePhoto", "LargePhoto", "SalesTerritoryImage" };
             private String[] empty = new String[]{ "EnglishProductName", "SpanishProductName", "FrenchProductName" };
             
             @Override
             public JSONObject transform(JSONObject record) throws ConvirganceException
             {
+                if(schema != null) schema.transform(record);
+                
                 // Parse binary data
                 for(String key : binary)
                 {
-                    if(record.containsKey(key) && !record.isNull(key))
+                    if(record.get(key) instanceof CharSequence)
                     {
-                        record.put(key, parseBinaryString(record.getString(key)));
+                        record.put(key, parseBinaryValue((CharSequence)record.get(key)));
                     }
                 }
                 
@@ -128,10 +443,72 @@ public class LoadDatabase implements Tool
                 
                 return record;        
             }
+        });
+        
+        // Parse threads transform their own records, otherwise the transform gets a stage of its own
+        if(parseThreads > 1) input.setTransformer(transformer);
+        
+        read.addBytesRead(TableScheduler.getRawFile(create).length());
+        
+        stream = read.time(input.read(source));
+        
+        // Skip rows committed by a previous run
+        if(offset > 0) stream = new Filter() {
+            
+            private long skipped;
+            
+            @Override
+            public boolean test(JSONObject record)
+            {
+                return (skipped++ >= offset);
+            }
         }.transform(stream);
         
-        // Bulk load the data in a transaction
-        new DBMS(getSource()).update(new BatchOperation(new Query(sql), stream));
+        // Rows loaded into a staging table are recorded under the real table
+        if(loader instanceof BatchInsertLoader) ((BatchInsertLoader)loader).setCommitStage(commit);
+        
+        if(loader instanceof BatchInsertLoader) ((BatchInsertLoader)loader).setListener((total, count, nanos) -> {
+            var rate = (long)(count / Math.max(nanos / 1_000_000_000.0, 0.001));
+            
+            if(journal != null) journal.committed(create.getTableName(), offset + total);
+            
+            System.out.println("    " + create.getTableName() + ": committed " + (offset + total) + " rows (" + rate + " rows/sec)");
+        });
+        
+        if(connections > 1) loader = new PartitionedLoader(loader, connections);
+        if(atomic) createStaging(target);
+        
+        // Reading and transforming overlap with the loader's round trips to the database
+        try(var pipeline = new Pipeline(stream, (parseThreads > 1) ? null : transformer))
+        {
+            pipeline.setStages(read, transform, write);
+            
+            start = System.nanoTime();
+            
+            loader.load(getSource(), target, pipeline);
+            
+            // Whatever the loader spent outside of waiting for records and committing was spent writing.
+            // Partitions commit alongside each other, so their commit time overlaps the writing.
+            elapsed = System.nanoTime() - start - (commit.getNanos() + write.getStarvedNanos() - elapsed);
+            
+            if(connections > 1) elapsed += commit.getNanos() - committed;
+            rows = Math.max(0, read.getRows() - rows - offset);
+            
+            read.addHeapSaved(input.getHeapSaved());
+        }
+        catch(RuntimeException e)
+        {
+            if(atomic) dropStaging(target);
+            
+            throw e;
+        }
+        
+        write.add(rows, elapsed);
+        write.sample();
+        
+        if(atomic) metrics.getStage(create.getTableName(), "swap").time(() -> swap(create, target));
+        
+        if(journal != null) journal.completed(create.getTableName());
     }
     
     public boolean skip(String name)
@@ -141,91 +518,163 @@ public class LoadDatabase implements Tool
         return false;
     }
     
+    public static boolean isFact(TableExtractor.CreateTable create)
+    {
+        var name = create.getTableName();
+        
+        return name.startsWith("Fact") || name.startsWith("NewFact");
+    }
+    
     @Override
     public String getName()
     {
         return "load";
     }
     
-    private byte[] parseBinaryString(String value)
+    public static byte[] parseBinaryString(String value)
     {
-        byte[] data = new byte[value.length()/2];
-        
-        for(int i=0; i<data.length; i++)
-        {
-            data[i] = (byte)Integer.parseInt(value.substring(i*2, i*2+2), 16);
-        }
-        
-        return data;
+        return HexDecoder.decode(value);
     }
     
-    private String normalize(String sql)
+    public static Object parseBinaryValue(CharSequence value)
     {
-        sql = sql.replaceAll(" bit", " int");
-        sql = sql.replaceAll(" BIT", " INT");
-        sql = sql.replaceAll("datetime", "timestamp");
-        sql = sql.replaceAll("DATETIME", "TIMESTAMP");
-        sql = sql.replaceAll("nchar", "char");
-        sql = sql.replaceAll("NCHAR", "CHAR");
-        sql = sql.replaceAll("nvarchar", "varchar");
-        sql = sql.replaceAll("NVARCHAR", "VARCHAR");
-        sql = sql.replaceAll("money", "decimal(19, 4)");
-        sql = sql.replaceAll("MONEY", "DECIMAL(19, 4)");
-        sql = sql.replaceAll("varbinary\\(max\\)", "blob");
-        sql = sql.replaceAll("VARBINARY\\(MAX\\)", "BLOB");
-        sql = sql.replaceAll("varchar\\(max\\)", "varchar(4096)");
-        sql = sql.replaceAll("VARCHAR\\(MAX\\)", "VARCHAR(4096)");
-        sql = sql.replaceAll("Unknown ", "\"Unknown\" ");
-        sql = sql.replaceAll("n'", "'");
-        sql = sql.trim();
-        
-        if(sql.charAt(sql.length()-1) == ';') sql = sql.substring(0, sql.length()-1);
+        // Large values are streamed to the driver instead of decoded up front
+        if(value.length()/2 >= STREAM_THRESHOLD) return new HexInputStream(value);
         
-        return sql;
+        return HexDecoder.decode(value);
     }
-
+    
     @Override
     public void execute(String[] args)
     {
+        var options = new Options(args, "resume", "unordered", "untyped", "atomic");
+        var dimensions = new JSONArray<TableExtractor.CreateTable>();
+        var facts = new JSONArray<TableExtractor.CreateTable>();
+        var tables = new JSONArray<TableExtractor.CreateTable>();
+        var loaded = new HashSet<String>();
+        
+        if(options.getArgumentCount() > 1) url = options.getArgument(1);
+        if(options.getArgumentCount() > 2) username = options.getArgument(2);
+        if(options.getArgumentCount() > 3) password = options.getArgument(3);
+        
+        batchSize = options.getInt("batch-size", batchSize);
+        commitEvery = options.getInt("commit-every", commitEvery);
+        
+        if(batchSize < 1) throw new ConvirganceException("Batch size must be at least 1");
+        if(commitEvery < 0) throw new ConvirganceException("Commit interval cannot be negative");
+        
+        loaderName = options.get("loader", null);
+        deferred = options.get("constraints", "deferred").equalsIgnoreCase("deferred");
+        
+        if(!deferred && !options.get("constraints", "").equalsIgnoreCase("inline"))
+        {
+            throw new ConvirganceException("Unknown constraint mode: " + options.get("constraints", null));
+        }
+        
+        if(loaderName != null && loaderName.equalsIgnoreCase("auto")) loaderName = null;
+        
+        dialectName = options.get("dialect", null);
+        
+        if(dialectName != null && dialectName.equalsIgnoreCase("auto")) dialectName = null;
+        
+        // Keys can only be declared inline when they can't be added afterwards
+        if(!getDialect().isAlterSupported()) deferred = false;
+        
+        parseThreads = options.getInt("parse-threads", parseThreads);
+        ordered = !options.has("unordered");
+        typed = !options.has("untyped");
+        connections = options.getInt("connections", connections);
+        atomic = options.has("atomic");
+        
+        if(parseThreads < 1) throw new ConvirganceException("Parse thread count must be at least 1");
+        if(connections < 1) throw new ConvirganceException("Connection count must be at least 1");
+        
+        // Partitions commit in any order, so the committed rows are not a prefix of the table
+        if(commitEvery > 0 && connections > 1) throw new ConvirganceException("--connections cannot be combined with --commit-every");
+        if(commitEvery > 0 && atomic) throw new ConvirganceException("--atomic cannot be combined with --commit-every");
+        
+        // The journal can't tell which partitions committed before a failure, so resuming would load them again
+        if(options.has("resume") && connections > 1 && !atomic) throw new ConvirganceException("--resume can only be combined with --connections when --atomic is set");
+        
+        // Committed row counts only identify rows to skip if the order is repeatable
+        if(commitEvery > 0 && !ordered) throw new ConvirganceException("--unordered cannot be combined with --commit-every");
+        
+        if(commitEvery > 0 && !(getLoader() instanceof BatchInsertLoader))
+        {
+            throw new ConvirganceException("--commit-every is only supported by the batch loader");
+        }
+        
+        var file = new File(options.get("journal", "AdventureWorks/load-journal.json"));
+        
+        journal = options.has("resume") ? LoadJournal.read(file, url) : new LoadJournal(file, url);
+        
         DatabaseSchemaLayout layout = getSchema();
         Catalog catalog = layout.getCurrentCatalog();
         Schema schema = layout.getCurrentSchema();
         
-        String sql;
-        
         for(var create : TableExtractor.getCreateTables())
         {
             // Skip SQL Server internal tables
             if(create.getTableName().equalsIgnoreCase("sysdiagrams")) continue;
             
-            System.out.print("Loading " + create.getTableName() + "... ");
-            
             // Some tables do not have data
-            if(skip(create.getTableName()) || !new File("AdventureWorks/raw/" + create.getTableName() + ".csv").exists()) 
-            {
-                System.out.println("Done");
-                
-                continue;
-            }
+            if(skip(create.getTableName()) || !TableScheduler.getRawFile(create).exists()) continue;
             
             if(schema.getTable(create.getTableName()) == null)
             {
-                sql = normalize(create.toSQL());
+                var sql = getCreateSQL(create);
+
+                Metrics.getCurrent().getStage(create.getTableName(), "create").time(() -> {
+                    
+                    new DBMS(layout.getDataSource()).update(new Query(sql));
 
-                new DBMS(layout.getDataSource()).update(new Query(sql));
+                    if(!deferred) addKeys(create);
+                });
             }
             
-            load(create);
+            tables.add(create);
+            loaded.add(create.getTableName().toLowerCase(Locale.ROOT));
+            
+            if(journal.isComplete(create.getTableName()))
+            {
+                System.out.println("Skipping " + create.getTableName() + " (already loaded)");
+                continue;
+            }
             
-            System.out.println("Done");
+            if(isFact(create)) facts.add(create);
+            else dimensions.add(create);
         }
+        
+        var scheduler = new TableScheduler(options.getInt("threads", 1));
+        
+        // Dimensions go first so fact rows always have something to reference
+        scheduler.execute("Loading", dimensions, this::load);
+        scheduler.execute("Loading", facts, this::load);
+        
+        if(deferred) scheduler.execute("Indexing", tables, create -> {
+            Metrics.getCurrent().getStage(create.getTableName(), "keys").time(() -> addKeys(create));
+        });
+        
+        // Foreign keys were declared with the tables
+        if(!getDialect().isAlterSupported()) return;
+        
+        tables.removeIf(create -> create.constraints.stream().noneMatch(TableExtractor.CreateConstraint::isForeignKey));
+        
+        // Adding a foreign key locks both tables, so these run one at a time
+        new TableScheduler(1).execute("Adding foreign keys to", tables, create -> {
+            Metrics.getCurrent().getStage(create.getTableName(), "foreign keys").time(() -> addForeignKeys(create, loaded));
+        });
     }
 
     @Override
     public String getHelp()
     {
         return """
-                load <jdbc url> <username> <password>
+                load <jdbc url> <username> <password> [--threads n]
+                     [--batch-size n] [--commit-every n] [--resume]
+                     [--journal file] [--loader name] [--dialect name]
+                     [--constraints inline|deferred] [--parse-threads n]
+                     [--unordered] [--untyped] [--connections n] [--atomic]
                 
                     Creates the necessary tables and loads the AdventureWorks data
                     into the specified database. The load will fail if the table
@@ -236,7 +685,56 @@ public class LoadDatabase implements Tool
 
                     jdbc url - (Required) The JDBC connection URL for the database
                     username - (Required) The database username to log in as
-                    password - (Required) The database password to log in with""";
+                    password - (Required) The database password to log in with
+                    --threads - (Optional) Number of tables to load at the same
+                                time. Dimensions are always loaded before facts.
+                                Defaults to 1
+                    --batch-size - (Optional) Number of rows sent to the database
+                                   in each JDBC batch. Defaults to 10000
+                    --commit-every - (Optional) Commit after this many rows and
+                                     report the rows/sec of each chunk. Defaults
+                                     to 0, loading each table in one transaction
+                    --resume - (Optional) Continue an interrupted load, skipping
+                               tables the journal lists as complete and rows
+                               already committed in a partially loaded table
+                    --journal - (Optional) Checkpoint file recording the
+                                progress of the load. Defaults to
+                                AdventureWorks/load-journal.json
+                    --loader - (Optional) How rows are sent to the database.
+                               One of auto, batch, derby or postgresql. The
+                               default of auto uses the native bulk import of
+                               Derby and PostgreSQL and batched inserts for
+                               other databases or when --commit-every is set
+                    --dialect - (Optional) Which database's native column
+                                types the tables are created with. One of
+                                auto, derby, postgresql, mysql, h2, sqlite or
+                                standard. The default of auto chooses from
+                                the JDBC URL
+                    --constraints - (Optional) When to create primary keys,
+                                    unique constraints and indexes. The default
+                                    of deferred creates them after the data is
+                                    loaded. Inline creates them with the tables.
+                                    Foreign keys are always added last, except
+                                    on SQLite where everything is inline
+                    --parse-threads - (Optional) Number of threads parsing each
+                                      large raw file. Defaults to 1
+                    --unordered - (Optional) Insert records in the order the
+                                  parse threads produce them rather than the
+                                  order of the raw file. Not compatible with
+                                  --commit-every
+                    --untyped - (Optional) Send values to the database as
+                                strings instead of converting them to the
+                                column types declared in the DDL
+                    --connections - (Optional) Number of connections each table
+                                    is loaded over. Rows are split between the
+                                    connections and each commits its own
+                                    share. Not compatible with --commit-every,
+                                    or with --resume unless --atomic is set.
+                                    Defaults to 1
+                    --atomic - (Optional) Load each table into a staging table
+                               and copy it into the real table in a single
+                               transaction, so a failed load leaves the table
+                               empty. Not compatible with --commit-every""";
               
     }
     
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.target.FileTarget;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checkpoint file for database loads. Records the tables that have been fully
+ * loaded, the constraints and indexes created after the load and, when loading 
+ * with chunked commits, the number of rows committed so far for each table. 
+ * The journal is rewritten after every commit so that an interrupted load can
+ * pick up where it left off.
+ * 
+ * @author jbanes
+ */
+public class LoadJournal
+{
+    private File file;
+    private String url;
+    private JSONObject tables = new JSONObject(true);
+    private JSONArray<String> applied = new JSONArray<>();
+
+    public LoadJournal(File file, String url)
+    {
+        this.file = file;
+        this.url = url;
+    }
+    
+    /**
+     * Reads an existing journal. An empty journal is returned if the file 
+     * doesn't exist.
+     * 
+     * @param file the journal file
+     * @param url the JDBC URL being loaded, which must match the journal
+     * @return the journal
+     */
+    public static LoadJournal read(File file, String url)
+    {
+        var journal = new LoadJournal(file, url);
+        JSONObject record;
+        
+        if(!file.exists()) return journal;
+        
+        record = new JSONObject(new FileSource(file).readString("UTF-8"));
+        
+        if(!url.equals(record.getString("url")))
+        {
+            throw new ConvirganceException("Journal " + file + " is for " + record.getString("url") + ", not " + url);
+        }
+        
+        journal.tables = record.getJSONObject("tables");
+        
+        for(Object name : record.getJSONArray("applied", new JSONArray<String>()))
+        {
+            journal.applied.add((String)name);
+        }
+        
+        return journal;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+    
+    public synchronized boolean isComplete(String table)
+    {
+        var entry = tables.getJSONObject(table, null);
+        
+        return (entry != null && entry.getBoolean("complete", false));
+    }
+    
+    /**
+     * Number of rows known to be committed for a table that is not yet complete
+     * 
+     * @param table the table name
+     * @return rows committed or zero if nothing is known to be committed
+     */
+    public synchronized long getRows(String table)
+    {
+        var entry = tables.getJSONObject(table, null);
+        
+        return (entry == null) ? 0 : entry.getLong("rows", 0);
+    }
+    
+    public synchronized void committed(String table, long rows)
+    {
+        var entry = new JSONObject(true);
+        
+        entry.put("rows", rows);
+        entry.put("complete", false);
+        
+        tables.put(table, entry);
+        write();
+    }
+    
+    public synchronized void completed(String table)
+    {
+        var entry = new JSONObject(true);
+        
+        entry.put("rows", getRows(table));
+        entry.put("complete", true);
+        
+        tables.put(table, entry);
+        write();
+    }
+    
+    /**
+     * @param name name of a constraint or index created after the load
+     * @return true if the constraint or index has already been created
+     */
+    public synchronized boolean isApplied(String name)
+    {
+        return applied.contains(name);
+    }
+    
+    public synchronized void applied(String name)
+    {
+        applied.add(name);
+        write();
+    }
+    
+    private void write()
+    {
+        var record = new JSONObject(true);
+        var temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        
+        record.put("url", url);
+        record.put("tables", tables);
+        record.put("applied", applied);
+        
+        try
+        {
+            // Write and rename so a crash never leaves a partial journal
+            new FileTarget(temp).writeString(record.toString(4), "UTF-8");
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+}
@@ -21,6 +21,7 @@ SOFTWARE.
  */
 package com.invirgance.example.olap;
 
+import java.io.File;
 import javax.sql.DataSource;
 
 /**
@@ -32,6 +33,8 @@ public class Main
     public static Tool[] tools = new Tool[] {
         new ConvertData(),
         new GenerateSQL(),
+        new GenerateData(),
+        new SubsetData(),
         new LoadDatabase()
     };
     
@@ -75,6 +78,10 @@ public class Main
         System.out.println("    java -jar dataset.jar <command> [options]");
         System.out.println();
         
+        System.out.println("Every command prints a summary of the rows, bytes, time,");
+        System.out.println("heap and GC time of each phase of each table. Add");
+        System.out.println("--metrics <file> to also write the summary as JSON.");
+        System.out.println();
         System.out.println("Commands:");
         System.out.println();
         
@@ -88,16 +95,44 @@ public class Main
         System.exit(0);
     }
     
+    /**
+     * Finds the <code>--metrics &lt;file&gt;</code> option, which applies to
+     * every tool.
+     * 
+     * @param args the command line
+     * @return the report file or null if no report was requested
+     */
+    public static File getMetricsReport(String[] args)
+    {
+        for(var i=0; i<args.length; i++)
+        {
+            if(args[i].startsWith("--metrics=")) return new File(args[i].substring("--metrics=".length()));
+            if(args[i].equals("--metrics") && i+1 < args.length) return new File(args[i+1]);
+        }
+        
+        return null;
+    }
+    
     public static void main(String[] args) throws Exception
     {
+        File report;
+        
         if(args.length < 1) printHelp();
         
         for(Tool tool : tools)
         {
             if(args[0].equals(tool.getName())) 
             {
+                report = getMetricsReport(args);
+                
+                Metrics.setCurrent(new Metrics(tool.getName()));
+                
                 tool.execute(args);
                 
+                Metrics.getCurrent().print(System.out);
+                
+                if(report != null) Metrics.getCurrent().write(report);
+                
                 return;
             }
         }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.target.FileTarget;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records what each generated file was built from so that later runs can 
+ * skip tables whose inputs haven't changed. Each file is stored with its own
+ * size, the size, modification time and SHA-256 hash of the raw file it was
+ * converted from, the hash of the table definition, the tool version and any
+ * settings that affect its contents.
+ * <br><br>
+ * Raw files are only hashed again when their size or modification time has
+ * changed, so checking an unchanged tree costs a few file system calls per 
+ * table. A raw file that was touched but not changed is still current and 
+ * its new modification time is recorded.
+ * 
+ * @author jbanes
+ */
+public class Manifest
+{
+    public static final File DEFAULT_FILE = new File("AdventureWorks/manifest.json");
+    
+    private static final int MANIFEST_VERSION = 1;
+    
+    private File file;
+    private JSONObject artifacts = new JSONObject(true);
+    private Map<String,String> hashes = new ConcurrentHashMap<>();
+
+    public Manifest(File file)
+    {
+        this.file = file;
+    }
+    
+    /**
+     * Reads an existing manifest. An empty manifest is returned if the file
+     * doesn't exist or was written by an incompatible version, in which case
+     * everything is regenerated.
+     * 
+     * @param file the manifest file
+     * @return the manifest
+     */
+    public static Manifest read(File file)
+    {
+        var manifest = new Manifest(file);
+        JSONObject record;
+        
+        if(!file.exists()) return manifest;
+        
+        record = new JSONObject(new FileSource(file).readString("UTF-8"));
+        
+        if(record.getInt("manifestVersion", 0) == MANIFEST_VERSION)
+        {
+            manifest.artifacts = record.getJSONObject("artifacts");
+        }
+        
+        return manifest;
+    }
+    
+    /**
+     * @return the version from the jar manifest, or "development" when 
+     *         running from classes
+     */
+    public static String getToolVersion()
+    {
+        var version = Manifest.class.getPackage().getImplementationVersion();
+        
+        return (version == null) ? "development" : version;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+    
+    private String hash(File raw)
+    {
+        var key = raw.getAbsolutePath() + ":" + raw.length() + ":" + raw.lastModified();
+        
+        return hashes.computeIfAbsent(key, k -> {
+            
+            var buffer = new byte[64 * 1024];
+            int count;
+            
+            try(var in = new FileInputStream(raw))
+            {
+                var digest = MessageDigest.getInstance("SHA-256");
+                
+                while((count = in.read(buffer)) > 0) digest.update(buffer, 0, count);
+                
+                return HexFormat.of().formatHex(digest.digest());
+            }
+            catch(IOException | NoSuchAlgorithmException e)
+            {
+                throw new ConvirganceException("Unable to hash " + raw, e);
+            }
+        });
+    }
+    
+    /**
+     * Checks if a generated file is still up to date.
+     * 
+     * @param artifact the generated file
+     * @param create the table the file was generated for
+     * @param raw the raw file it was converted from, or null if it was 
+     *        generated from the table definition alone
+     * @param settings options that change the contents of the file
+     * @return true if the file exists and none of its inputs have changed
+     */
+    public boolean isCurrent(File artifact, TableExtractor.CreateTable create, File raw, String settings)
+    {
+        JSONObject entry;
+        JSONObject input;
+        
+        synchronized(this)
+        {
+            entry = artifacts.getJSONObject(artifact.getPath(), null);
+        }
+        
+        if(entry == null || !artifact.exists() || artifact.length() != entry.getLong("size")) return false;
+        if(!getToolVersion().equals(entry.getString("version"))) return false;
+        if(!create.getHash().equals(entry.getString("ddl"))) return false;
+        if(!settings.equals(entry.getString("settings"))) return false;
+        
+        input = entry.getJSONObject("raw", null);
+        
+        if(raw == null || input == null) return (raw == null && input == null);
+        if(raw.length() != input.getLong("size")) return false;
+        if(raw.lastModified() == input.getLong("modified")) return true;
+        if(!hash(raw).equals(input.getString("hash"))) return false;
+        
+        update(artifact, create, raw, settings);
+        
+        return true;
+    }
+    
+    /**
+     * Records the inputs of a file that has just been generated.
+     * 
+     * @param artifact the generated file
+     * @param create the table the file was generated for
+     * @param raw the raw file it was converted from, or null if it was 
+     *        generated from the table definition alone
+     * @param settings options that change the contents of the file
+     */
+    public void update(File artifact, TableExtractor.CreateTable create, File raw, String settings)
+    {
+        var entry = new JSONObject(true);
+        var input = new JSONObject(true);
+        
+        entry.put("size", artifact.length());
+        entry.put("version", getToolVersion());
+        entry.put("ddl", create.getHash());
+        entry.put("settings", settings);
+        
+        if(raw != null)
+        {
+            input.put("path", raw.getPath());
+            input.put("size", raw.length());
+            input.put("modified", raw.lastModified());
+            input.put("hash", hash(raw));
+            
+            entry.put("raw", input);
+        }
+        
+        synchronized(this)
+        {
+            artifacts.put(artifact.getPath(), entry);
+            write();
+        }
+    }
+    
+    private void write()
+    {
+        var record = new JSONObject(true);
+        var temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        
+        record.put("manifestVersion", MANIFEST_VERSION);
+        record.put("artifacts", artifacts);
+        
+        try
+        {
+            // Write and rename so a crash never leaves a partial manifest
+            new FileTarget(temp).writeString(record.toString(4), "UTF-8");
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.target.FileTarget;
+import com.invirgance.convirgance.transform.IdentityTransformer;
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects throughput and resource figures for each phase of each table 
+ * processed by a tool run. Main installs a fresh instance before running a 
+ * tool, prints a summary once the tool finishes and writes a JSON report if
+ * <code>--metrics &lt;file&gt;</code> was given.
+ * <br><br>
+ * Phases record rows, bytes read and written, and the time spent inside the
+ * phase. Reading covers parsing. Streaming phases run at the same time as
+ * stages of a Pipeline, so their times can add up to more than the time 
+ * spent on the table. The transform time is summed across parse threads, 
+ * so it can also exceed the elapsed time. Peak heap and GC time are 
+ * sampled from the JVM over the span of each phase. They are shared with any 
+ * phase or table running at the same time.
+ * <br><br>
+ * Phases that run as stages of a Pipeline also record the average depth of
+ * the queue feeding them, the time they were starved waiting on that queue
+ * and the time they were blocked by a full queue downstream. A stage that is
+ * mostly starved is waiting on the stage before it, while one that is mostly
+ * blocked is being held back by the stage after it.
+ * <br><br>
+ * Reading also records the heap saved by interning repeated strings, 
+ * estimated from the size of each String that didn't have to be kept.
+ * 
+ * @author jbanes
+ */
+public class Metrics
+{
+    private static Metrics current = new Metrics("");
+    
+    private final String tool;
+    private final long started = System.currentTimeMillis();
+    private final long start = System.nanoTime();
+    private final List<Stage> stages = new ArrayList<>();
+    private final Map<String,Stage> index = new HashMap<>();
+
+    public Metrics(String tool)
+    {
+        this.tool = tool;
+    }
+
+    public static Metrics getCurrent()
+    {
+        return current;
+    }
+
+    public static void setCurrent(Metrics metrics)
+    {
+        current = metrics;
+    }
+
+    public String getTool()
+    {
+        return tool;
+    }
+    
+    /**
+     * Returns the stage recording a phase of a table, creating it on first
+     * use. Stages are reported in the order they were created.
+     * 
+     * @param table the table name
+     * @param phase the phase, such as read, transform, write or commit
+     * @return the stage
+     */
+    public synchronized Stage getStage(String table, String phase)
+    {
+        return index.computeIfAbsent(table + "/" + phase, key -> {
+            var stage = new Stage(table, phase);
+            
+            stages.add(stage);
+            
+            return stage;
+        });
+    }
+    
+    public synchronized List<Stage> getStages()
+    {
+        return List.copyOf(stages);
+    }
+    
+    static long getTotalCollectionTime()
+    {
+        var total = 0L;
+        
+        for(var collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        
+        return total;
+    }
+    
+    static long getHeapUsed()
+    {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+    
+    private static String formatBytes(long bytes)
+    {
+        if(bytes <= 0) return "-";
+        if(bytes < 1024) return bytes + " B";
+        if(bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        if(bytes < 1024L * 1024 * 1024) return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+    
+    private static String formatNanos(long nanos)
+    {
+        if(nanos < 1_000_000_000L) return String.format("%dms", nanos / 1_000_000);
+        
+        return String.format("%.2fs", nanos / 1_000_000_000.0);
+    }
+    
+    /**
+     * Prints a table with a line per table and phase. Nothing is printed if
+     * no stages were recorded.
+     * 
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out)
+    {
+        var stages = getStages();
+        var width = "Table".length();
+        String format;
+        
+        if(stages.isEmpty()) return;
+        
+        for(Stage stage : stages) width = Math.max(width, stage.getTable().length());
+        
+        format = "%-" + width + "s  %-12s %10s %10s %10s %9s %10s %10s %7s %7s %9s %9s %10s%n";
+        
+        out.println();
+        out.printf(format, "Table", "Phase", "Rows", "Read", "Written", "Time", "Rows/sec", "Peak heap", "GC", "Queue", "Starved", "Blocked", "Interned");
+        
+        for(Stage stage : stages)
+        {
+            out.printf(format, 
+                    stage.getTable(), 
+                    stage.getPhase(), 
+                    stage.getRows(), 
+                    formatBytes(stage.getBytesRead()), 
+                    formatBytes(stage.getBytesWritten()), 
+                    formatNanos(stage.getNanos()), 
+                    (stage.getRows() > 0) ? String.valueOf(stage.getRowsPerSecond()) : "-", 
+                    formatBytes(stage.getPeakHeap()), 
+                    stage.getCollectionTime() + "ms",
+                    (stage.getQueueCapacity() > 0) ? String.format("%.1f/%d", stage.getAverageQueueDepth(), stage.getQueueCapacity()) : "-",
+                    stage.isQueued() ? formatNanos(stage.getStarvedNanos()) : "-",
+                    stage.isQueued() ? formatNanos(stage.getBlockedNanos()) : "-",
+                    (stage.getHeapSaved() > 0) ? formatBytes(stage.getHeapSaved()) : "-");
+        }
+        
+        out.println();
+        out.println("Total time: " + formatNanos(System.nanoTime() - start));
+    }
+    
+    public JSONObject toJSONObject()
+    {
+        var record = new JSONObject(true);
+        var array = new JSONArray<JSONObject>();
+        
+        for(Stage stage : getStages()) array.add(stage.toJSONObject());
+        
+        record.put("tool", tool);
+        record.put("started", started);
+        record.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        record.put("stages", array);
+        
+        return record;
+    }
+    
+    public void write(File file)
+    {
+        new FileTarget(file).writeString(toJSONObject().toString(4), "UTF-8");
+    }
+    
+    public static class Stage
+    {
+        private final String table;
+        private final String phase;
+        
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong starvedNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+        private final AtomicLong queueSamples = new AtomicLong();
+        private final AtomicLong queueDepth = new AtomicLong();
+        private final AtomicLong heapSaved = new AtomicLong();
+        
+        private volatile int queueCapacity;
+        private volatile boolean queued;
+        private boolean sampled;
+        private long peakHeap;
+        private long collectionStart;
+        private long collectionEnd;
+
+        public Stage(String table, String phase)
+        {
+            this.table = table;
+            this.phase = phase;
+        }
+
+        public String getTable()
+        {
+            return table;
+        }
+
+        public String getPhase()
+        {
+            return phase;
+        }
+
+        public long getRows()
+        {
+            return rows.get();
+        }
+
+        public long getBytesRead()
+        {
+            return bytesRead.get();
+        }
+
+        public long getBytesWritten()
+        {
+            return bytesWritten.get();
+        }
+
+        public long getNanos()
+        {
+            return nanos.get();
+        }
+        
+        public long getRowsPerSecond()
+        {
+            return (long)(getRows() / Math.max(getNanos() / 1_000_000_000.0, 0.000001));
+        }
+
+        public synchronized long getPeakHeap()
+        {
+            return peakHeap;
+        }
+        
+        /**
+         * @return milliseconds spent in garbage collection between the first
+         *         and last samples of this stage
+         */
+        public synchronized long getCollectionTime()
+        {
+            return collectionEnd - collectionStart;
+        }
+        
+        /**
+         * Samples the heap and GC time. Called at the start and end of each
+         * phase and every 4096 rows in between.
+         */
+        public void sample()
+        {
+            var heap = getHeapUsed();
+            var collection = getTotalCollectionTime();
+            
+            synchronized(this)
+            {
+                if(!sampled) collectionStart = collection;
+                
+                sampled = true;
+                collectionEnd = Math.max(collectionEnd, collection);
+                peakHeap = Math.max(peakHeap, heap);
+            }
+        }
+        
+        public void add(long rows, long nanos)
+        {
+            var total = this.rows.addAndGet(rows);
+            
+            this.nanos.addAndGet(nanos);
+            
+            if(total == rows || (total >> 12) != ((total - rows) >> 12)) sample();
+        }
+        
+        /**
+         * Records the depth of the queue feeding this stage, taken each time
+         * the stage takes a batch from it.
+         * 
+         * @param depth number of batches waiting in the queue
+         * @param capacity maximum number of batches the queue holds
+         */
+        public void sampleQueue(int depth, int capacity)
+        {
+            queueCapacity = capacity;
+            queued = true;
+            
+            queueSamples.incrementAndGet();
+            queueDepth.addAndGet(depth);
+        }
+        
+        /**
+         * @param nanos time spent waiting for the stage before to produce
+         */
+        public void addStarved(long nanos)
+        {
+            queued = true;
+            
+            starvedNanos.addAndGet(nanos);
+        }
+        
+        /**
+         * @param nanos time spent waiting for the stage after to make room
+         */
+        public void addBlocked(long nanos)
+        {
+            queued = true;
+            
+            blockedNanos.addAndGet(nanos);
+        }
+        
+        /**
+         * @return true if the stage ran as part of a Pipeline
+         */
+        public boolean isQueued()
+        {
+            return queued;
+        }
+        
+        public double getAverageQueueDepth()
+        {
+            var samples = queueSamples.get();
+            
+            return (samples == 0) ? 0 : (double)queueDepth.get() / samples;
+        }
+        
+        public int getQueueCapacity()
+        {
+            return queueCapacity;
+        }
+        
+        public long getStarvedNanos()
+        {
+            return starvedNanos.get();
+        }
+        
+        public long getBlockedNanos()
+        {
+            return blockedNanos.get();
+        }
+        
+        /**
+         * @param bytes estimated heap saved by reusing interned strings
+         */
+        public void addHeapSaved(long bytes)
+        {
+            heapSaved.addAndGet(bytes);
+        }
+        
+        public long getHeapSaved()
+        {
+            return heapSaved.get();
+        }
+        
+        public void addBytesRead(long bytes)
+        {
+            bytesRead.addAndGet(bytes);
+        }
+        
+        public void addBytesWritten(long bytes)
+        {
+            bytesWritten.addAndGet(bytes);
+        }
+        
+        /**
+         * Runs a task as a single timed block of this phase.
+         * 
+         * @param task the work to time
+         */
+        public void time(Runnable task)
+        {
+            var start = System.nanoTime();
+            
+            sample();
+            
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                add(0, System.nanoTime() - start);
+                sample();
+            }
+        }
+        
+        /**
+         * Counts and times each record pulled from the iterable.
+         * 
+         * @param <T> type of the records
+         * @param iterable the records
+         * @return the same records
+         */
+        public <T> Iterable<T> time(Iterable<T> iterable)
+        {
+            return () -> {
+                
+                var start = System.nanoTime();
+                var iterator = iterable.iterator();
+                
+                add(0, System.nanoTime() - start);
+                
+                return new Iterator<T>() {
+                    
+                    @Override
+                    public boolean hasNext()
+                    {
+                        var start = System.nanoTime();
+                        var next = iterator.hasNext();
+                        
+                        add(0, System.nanoTime() - start);
+                        
+                        if(!next) sample();
+                        
+                        return next;
+                    }
+
+                    @Override
+                    public T next()
+                    {
+                        var start = System.nanoTime();
+                        var next = iterator.next();
+                        
+                        add(1, System.nanoTime() - start);
+                        
+                        return next;
+                    }
+                };
+            };
+        }
+        
+        public IdentityTransformer time(IdentityTransformer transformer)
+        {
+            return record -> {
+                
+                var start = System.nanoTime();
+                var result = transformer.transform(record);
+                
+                add(1, System.nanoTime() - start);
+                
+                return result;
+            };
+        }
+        
+        public OutputCursor time(OutputCursor cursor)
+        {
+            return new OutputCursor() {
+                @Override
+                public void write(JSONObject record)
+                {
+                    var start = System.nanoTime();
+                    
+                    cursor.write(record);
+                    add(1, System.nanoTime() - start);
+                }
+
+                @Override
+                public void close() throws Exception
+                {
+                    var start = System.nanoTime();
+                    
+                    try
+                    {
+                        cursor.close();
+                    }
+                    finally
+                    {
+                        add(0, System.nanoTime() - start);
+                        sample();
+                    }
+                }
+            };
+        }
+        
+        public JSONObject toJSONObject()
+        {
+            var record = new JSONObject(true);
+            
+            record.put("table", table);
+            record.put("phase", phase);
+            record.put("rows", getRows());
+            record.put("bytesRead", getBytesRead());
+            record.put("bytesWritten", getBytesWritten());
+            record.put("elapsedMillis", getNanos() / 1_000_000.0);
+            record.put("rowsPerSecond", getRowsPerSecond());
+            record.put("peakHeap", getPeakHeap());
+            record.put("gcMillis", getCollectionTime());
+            
+            if(getQueueCapacity() > 0)
+            {
+                record.put("averageQueueDepth", getAverageQueueDepth());
+                record.put("queueCapacity", getQueueCapacity());
+            }
+            
+            if(isQueued())
+            {
+                record.put("starvedMillis", getStarvedNanos() / 1_000_000.0);
+                record.put("blockedMillis", getBlockedNanos() / 1_000_000.0);
+            }
+            
+            if(getHeapSaved() > 0) record.put("heapSaved", getHeapSaved());
+            
+            return record;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.Output;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.target.Target;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans each record out to several output cursors so that a stream only needs
+ * to be read and parsed once no matter how many formats are being written.
+ * Records are shared between cursors and must not be modified by them.
+ * 
+ * @author jbanes
+ */
+public class MultiOutputCursor implements OutputCursor
+{
+    private List<OutputCursor> cursors = new ArrayList<>();
+    
+    public void add(OutputCursor cursor)
+    {
+        cursors.add(cursor);
+    }
+    
+    public void add(Output output, Target target)
+    {
+        cursors.add(output.write(target));
+    }
+
+    @Override
+    public void write(JSONObject record)
+    {
+        for(OutputCursor cursor : cursors) cursor.write(record);
+    }
+
+    @Override
+    public void close()
+    {
+        ConvirganceException exception = null;
+        
+        // Close everything even if one of the cursors fails
+        for(OutputCursor cursor : cursors)
+        {
+            try
+            {
+                cursor.close();
+            }
+            catch(Exception e)
+            {
+                if(exception == null) exception = new ConvirganceException(e);
+                else exception.addSuppressed(e);
+            }
+        }
+        
+        if(exception != null) throw exception;
+    }
+}
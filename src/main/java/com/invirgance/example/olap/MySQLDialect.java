@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+/**
+ * MySQL and MariaDB have one byte integers, including an unsigned tinyint 
+ * that matches the range of SQL Server's. Text is stored as utf8mb4 so the
+ * translated names keep every character. Fact tables use the compressed 
+ * InnoDB row format, which trades some insert speed for smaller tables and
+ * less I/O when they are scanned. Staging tables are left uncompressed as 
+ * they are only written once and read once.
+ * 
+ * @author jbanes
+ */
+public class MySQLDialect extends StandardDialect
+{
+    @Override
+    public String getName()
+    {
+        return "mysql";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:");
+    }
+
+    @Override
+    public String getType(TableExtractor.CreateColumn column)
+    {
+        switch(column.getBaseType())
+        {
+            case "bit":
+                return "tinyint";
+                
+            case "tinyint":
+                return "tinyint unsigned";
+                
+            case "smallint":
+                return "smallint";
+                
+            case "float":
+                return "double";
+                
+            case "real":
+                return "float";
+                
+            case "datetime":
+            case "datetime2":
+            case "smalldatetime":
+                return "datetime";
+                
+            case "varchar":
+            case "nvarchar":
+                return isMax(column) ? "longtext" : "varchar" + column.getSize();
+                
+            case "sysname":
+                return "varchar(128)";
+                
+            case "xml":
+                return "longtext";
+                
+            case "image":
+                return "longblob";
+                
+            case "binary":
+                return "binary" + column.getSize();
+                
+            case "varbinary":
+                return isMax(column) ? "longblob" : "varbinary" + column.getSize();
+                
+            default:
+                return super.getType(column);
+        }
+    }
+
+    @Override
+    public String getIdentifier(String name)
+    {
+        // Double quotes are string literals unless ANSI_QUOTES is set
+        if(name.equalsIgnoreCase("Unknown")) return "`" + name + "`";
+        
+        return name;
+    }
+
+    @Override
+    public String getTableOptions(TableExtractor.CreateTable create, boolean staging)
+    {
+        if(LoadDatabase.isFact(create) && !staging) return " default charset=utf8mb4 row_format=compressed";
+        
+        return " default charset=utf8mb4";
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+
+/**
+ * Splits command line arguments into positional arguments and named 
+ * <code>--option value</code> pairs. Options listed as switches take no value 
+ * and are simply present or absent. Values may also be given inline as
+ * <code>--option=value</code>.
+ * 
+ * @author jbanes
+ */
+public class Options
+{
+    private JSONArray<String> arguments = new JSONArray<>();
+    private JSONObject options = new JSONObject();
+    
+    public Options(String[] args, String... switches)
+    {
+        String arg;
+        String name;
+        
+        for(var i=0; i<args.length; i++)
+        {
+            arg = args[i];
+            
+            if(!arg.startsWith("--"))
+            {
+                arguments.add(arg);
+                continue;
+            }
+            
+            name = arg.substring(2);
+            
+            if(name.contains("="))
+            {
+                options.put(name.substring(0, name.indexOf('=')), name.substring(name.indexOf('=')+1));
+            }
+            else if(isSwitch(name, switches))
+            {
+                options.put(name, "true");
+            }
+            else if(i+1 < args.length)
+            {
+                options.put(name, args[++i]);
+            }
+            else
+            {
+                throw new ConvirganceException("Option --" + name + " requires a value");
+            }
+        }
+    }
+    
+    private boolean isSwitch(String name, String[] switches)
+    {
+        for(String value : switches)
+        {
+            if(value.equals(name)) return true;
+        }
+        
+        return false;
+    }
+    
+    public String getArgument(int index)
+    {
+        if(index >= arguments.size()) return null;
+        
+        return arguments.get(index);
+    }
+    
+    public int getArgumentCount()
+    {
+        return arguments.size();
+    }
+    
+    public boolean has(String name)
+    {
+        return options.containsKey(name);
+    }
+    
+    public String get(String name, String defaultValue)
+    {
+        if(!options.containsKey(name)) return defaultValue;
+        
+        return options.getString(name);
+    }
+    
+    public int getInt(String name, int defaultValue)
+    {
+        if(!options.containsKey(name)) return defaultValue;
+        
+        try
+        {
+            return Integer.parseInt(options.getString(name));
+        }
+        catch(NumberFormatException e)
+        {
+            throw new ConvirganceException("Option --" + name + " must be a number: " + options.getString(name));
+        }
+    }
+    
+    public long getLong(String name, long defaultValue)
+    {
+        if(!options.containsKey(name)) return defaultValue;
+        
+        try
+        {
+            return Long.parseLong(options.getString(name));
+        }
+        catch(NumberFormatException e)
+        {
+            throw new ConvirganceException("Option --" + name + " must be a number: " + options.getString(name));
+        }
+    }
+    
+    public String[] getList(String name, String... defaultValues)
+    {
+        if(!options.containsKey(name)) return defaultValues;
+        
+        return options.getString(name).split(",");
+    }
+}
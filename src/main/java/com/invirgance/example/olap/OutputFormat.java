@@ -0,0 +1,379 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.input.CSVInput;
+import com.invirgance.convirgance.input.Input;
+import com.invirgance.convirgance.input.JBINInput;
+import com.invirgance.convirgance.input.JSONInput;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.CSVOutput;
+import com.invirgance.convirgance.output.JBINOutput;
+import com.invirgance.convirgance.output.JSONOutput;
+import com.invirgance.convirgance.output.Output;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import com.invirgance.convirgance.target.FileTarget;
+import com.invirgance.convirgance.target.Target;
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * The formats the convert tool knows how to write. Each format is written to
+ * its own directory under AdventureWorks/&lt;format&gt;.
+ * 
+ * @author jbanes
+ */
+public enum OutputFormat
+{
+    JSON("json", "json"),
+    CSV("csv", "csv"),
+    JBIN("jbin", "bin"),
+    COLUMNAR("columnar", "col");
+    
+    public static final File DEFAULT_DIRECTORY = new File("AdventureWorks");
+    
+    // Matches the raw data, so typed text files read the same as untyped ones
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    // The raw data always has nine digits when there is a fraction, such as DatabaseLog.PostTime
+    private static final DateTimeFormatter DATETIME_NANOS = new DateTimeFormatterBuilder()
+            .append(DATETIME)
+            .appendFraction(ChronoField.NANO_OF_SECOND, 9, 9, true)
+            .toFormatter();
+    
+    private final String name;
+    private final String extension;
+
+    private OutputFormat(String name, String extension)
+    {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getExtension()
+    {
+        return extension;
+    }
+    
+    public Output getOutput()
+    {
+        switch(this)
+        {
+            case JSON: return new JSONOutput();
+            case CSV: return new CSVOutput();
+            case JBIN: return new JBINOutput();
+            case COLUMNAR: return new ColumnarOutput();
+        }
+        
+        throw new ConvirganceException("Unsupported format " + name);
+    }
+    
+    /**
+     * Columnar files need random access to their footer, so only the row
+     * oriented formats can be compressed.
+     * 
+     * @return true if the format can be written as gzip
+     */
+    public boolean isCompressible()
+    {
+        return (this != COLUMNAR);
+    }
+    
+    public File getFile(String table, boolean compressed)
+    {
+        return getFile(DEFAULT_DIRECTORY, table, compressed);
+    }
+    
+    /**
+     * @param directory the data set directory containing a directory for 
+     *        each format
+     * @param table the table name
+     * @param compressed true for the gzip file
+     * @return the table's file
+     */
+    public File getFile(File directory, String table, boolean compressed)
+    {
+        return new File(directory, name + "/" + table + "." + extension + (compressed ? ".gz" : ""));
+    }
+    
+    /**
+     * @param directory the data set directory containing a directory for 
+     *        each format
+     * @param table the table name
+     * @return the directory holding the partitions of a partitioned table
+     */
+    public File getPartitionDirectory(File directory, String table)
+    {
+        return new File(directory, name + "/" + table);
+    }
+    
+    public Target getTarget(String table)
+    {
+        return new FileTarget(getFile(table, false));
+    }
+    
+    /**
+     * @param table the table name
+     * @param compressThreads number of threads compressing the file, or 
+     *        zero to write it uncompressed
+     * @return the target for the table's file
+     */
+    public Target getTarget(String table, int compressThreads)
+    {
+        return getTarget(DEFAULT_DIRECTORY, table, compressThreads);
+    }
+    
+    public Target getTarget(File directory, String table, int compressThreads)
+    {
+        if(compressThreads < 1 || !isCompressible()) return new FileTarget(getFile(directory, table, false));
+        
+        return new GZIPTarget(getFile(directory, table, true), compressThreads);
+    }
+    
+    public Input<JSONObject> getInput()
+    {
+        switch(this)
+        {
+            case JSON: return new JSONInput();
+            case CSV: return new CSVInput();
+            case JBIN: return new JBINInput();
+            case COLUMNAR: return new ColumnarInput();
+        }
+        
+        throw new ConvirganceException("Unsupported format " + name);
+    }
+    
+    /**
+     * @param table the table name
+     * @return the table's file, decompressing it if it was written as gzip
+     */
+    public Source getSource(String table)
+    {
+        var compressed = getFile(table, true);
+        
+        if(compressed.exists()) return new GZIPSource(compressed);
+        
+        return new FileSource(getFile(table, false));
+    }
+    
+    /**
+     * Reads back a table written in this format, compressed or not.
+     * 
+     * @param table the table name
+     * @return the records of the table
+     */
+    public Iterable<JSONObject> read(String table)
+    {
+        return getInput().read(getSource(table));
+    }
+    
+    private Object adapt(Object value)
+    {
+        // Columnar files store the schema types directly
+        if(this == COLUMNAR) return value;
+        
+        if(value instanceof byte[] && this != JBIN)
+        {
+            return HexFormat.of().withUpperCase().formatHex((byte[])value);
+        }
+        
+        if(value instanceof LocalDateTime)
+        {
+            if(this == JBIN) return Date.from(((LocalDateTime)value).toInstant(ZoneOffset.UTC));
+            
+            return ((LocalDateTime)value).getNano() == 0 ? DATETIME.format((LocalDateTime)value) : DATETIME_NANOS.format((LocalDateTime)value);
+        }
+        
+        if(value instanceof LocalDate)
+        {
+            if(this == JBIN) return Date.from(((LocalDate)value).atStartOfDay().toInstant(ZoneOffset.UTC));
+            
+            return value.toString();
+        }
+        
+        // JBIN has no decimal type
+        if(value instanceof BigDecimal && this == JBIN) return ((BigDecimal)value).doubleValue();
+        
+        if(value instanceof Double || value instanceof Float) return adapt(((Number)value).doubleValue(), value);
+        
+        return value;
+    }
+    
+    private static Object adapt(double number, Object value)
+    {
+        // Whole numbers are written as integers like the raw data rather than as 22080.0.
+        // JBIN also stores them in 4 bytes instead of 8.
+        if(number != Math.rint(number) || Math.abs(number) >= 1e15 || (number == 0 && 1 / number < 0)) return value;
+        if(number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) return (int)number;
+        
+        return (long)number;
+    }
+    
+    /**
+     * Converts schema typed values that the format can't write directly. JBIN
+     * stores dates and times as UTC dates and decimals as doubles, so 
+     * decimals with more than 15 significant digits lose precision. The text 
+     * formats write dates as yyyy-MM-dd and times as yyyy-MM-dd HH:mm:ss 
+     * with a nine digit fraction if there is one, the same as the raw data, 
+     * and binary as hex. Floating point values that are whole numbers are
+     * written as integers by every format but the columnar one.
+     * Columnar files need no changes.
+     * The record is only copied if a value needs to change.
+     * 
+     * @param record the record to write
+     * @return the record or an adapted copy
+     */
+    public JSONObject adapt(JSONObject record)
+    {
+        JSONObject copy = null;
+        Object value;
+        Object adapted;
+        
+        for(var entry : record.entrySet())
+        {
+            value = entry.getValue();
+            adapted = adapt(value);
+            
+            if(adapted == value) continue;
+            if(copy == null)
+            {
+                copy = new JSONObject(true);
+                copy.putAll(record);
+            }
+            
+            copy.put(entry.getKey(), adapted);
+        }
+        
+        return (copy == null) ? record : copy;
+    }
+    
+    /**
+     * Opens a cursor writing the table in this format, adapting each record
+     * as needed.
+     * 
+     * @param table the table name
+     * @return a cursor writing to the format's file for the table
+     */
+    public OutputCursor write(String table)
+    {
+        return write(table, 0);
+    }
+    
+    /**
+     * Opens a cursor writing the table in this format, optionally gzip 
+     * compressed. Any copy of the table left from a previous run with the 
+     * other setting is deleted so that it can't be read back by mistake.
+     * 
+     * @param table the table name
+     * @param compressThreads number of threads compressing the file, or 
+     *        zero to write it uncompressed
+     * @return a cursor writing to the format's file for the table
+     */
+    public OutputCursor write(String table, int compressThreads)
+    {
+        return write(DEFAULT_DIRECTORY, table, compressThreads);
+    }
+    
+    /**
+     * Same as write(table, compressThreads), but writes to the format's 
+     * directory under another data set directory.
+     * 
+     * @param directory the data set directory
+     * @param table the table name
+     * @param compressThreads number of threads compressing the file, or 
+     *        zero to write it uncompressed
+     * @return a cursor writing to the format's file for the table
+     */
+    public OutputCursor write(File directory, String table, int compressThreads)
+    {
+        var compressed = (compressThreads > 0 && isCompressible());
+        var cursor = getOutput().write(getTarget(directory, table, compressThreads));
+        
+        getFile(directory, table, !compressed).delete();
+        
+        return new OutputCursor() {
+            @Override
+            public void write(JSONObject record)
+            {
+                cursor.write(adapt(record));
+            }
+
+            @Override
+            public void close() throws Exception
+            {
+                cursor.close();
+            }
+        };
+    }
+    
+    /**
+     * Opens a cursor writing a part file of one partition of a table, such
+     * as &lt;format&gt;/FactFinance/year=2011/month=07/part-00000.json
+     * 
+     * @param directory the data set directory
+     * @param table the table name
+     * @param partition the partition path
+     * @param part the number of the part file within the partition
+     * @param compressThreads number of threads compressing the file, or 
+     *        zero to write it uncompressed
+     * @return a cursor writing to the part file
+     */
+    public OutputCursor write(File directory, String table, String partition, int part, int compressThreads)
+    {
+        return write(directory, table + "/" + partition + String.format("/part-%05d", part), compressThreads);
+    }
+    
+    public static OutputFormat getFormat(String name)
+    {
+        for(OutputFormat format : values())
+        {
+            if(format.name.equalsIgnoreCase(name.trim())) return format;
+        }
+        
+        throw new ConvirganceException("Unknown format " + name + "! Expected one of json, csv, jbin, or columnar");
+    }
+    
+    public static OutputFormat[] getFormats(String... names)
+    {
+        var formats = new OutputFormat[names.length];
+        
+        for(var i=0; i<names.length; i++) formats[i] = getFormat(names[i]);
+        
+        return formats;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compresses a stream on a pool of threads. Data is cut into fixed size
+ * blocks and each block is compressed as a complete gzip member. Members are
+ * written in order, so the result is a valid multi-member gzip file that 
+ * GZIPInputStream and the gzip command line tools read as a single stream.
+ * <br><br>
+ * At most two blocks per thread are in flight, which bounds the memory used
+ * when the output can't keep up. Blocks are only compressed once full or
+ * when the stream is closed, so flush() does not force out partial blocks.
+ * 
+ * @author jbanes
+ */
+public class ParallelGZIPOutputStream extends OutputStream
+{
+    public static final int BLOCK_SIZE = 1024 * 1024;
+    
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int depth;
+    
+    private final Deque<Block> pending = new ArrayDeque<>();
+    private final Deque<byte[]> free = new ArrayDeque<>();
+    
+    private byte[] block;
+    private int length;
+    private long members;
+    private boolean closed;
+
+    public ParallelGZIPOutputStream(OutputStream out, int threads)
+    {
+        this(out, threads, BLOCK_SIZE);
+    }
+    
+    public ParallelGZIPOutputStream(OutputStream out, int threads, int blockSize)
+    {
+        if(threads < 1) throw new ConvirganceException("Thread count must be at least 1");
+        
+        this.out = out;
+        this.depth = threads * 2;
+        this.block = new byte[blockSize];
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "gzip-compressor");
+            
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+    }
+    
+    private static byte[] compress(byte[] data, int length) throws IOException
+    {
+        var buffer = new ByteArrayOutputStream(length / 4 + 64);
+        
+        try(var gzip = new GZIPOutputStream(buffer, 64 * 1024))
+        {
+            gzip.write(data, 0, length);
+        }
+        
+        return buffer.toByteArray();
+    }
+    
+    private void drain() throws IOException
+    {
+        var next = pending.poll();
+        
+        try
+        {
+            out.write(next.member.get());
+        }
+        catch(InterruptedException e)
+        {
+            throw new InterruptedIOException();
+        }
+        catch(ExecutionException e)
+        {
+            if(e.getCause() instanceof IOException) throw (IOException)e.getCause();
+            
+            throw new ConvirganceException(e.getCause());
+        }
+        
+        free.add(next.data);
+    }
+    
+    private void submit() throws IOException
+    {
+        var data = block;
+        var size = length;
+        
+        pending.add(new Block(data, executor.submit(() -> compress(data, size))));
+        
+        block = free.isEmpty() ? new byte[data.length] : free.poll();
+        length = 0;
+        members++;
+        
+        // Write out whatever is ready without waiting, unless too much is queued
+        while(!pending.isEmpty() && (pending.size() > depth || pending.peek().member.isDone())) drain();
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if(closed) throw new IOException("Stream closed");
+        if(length == block.length) submit();
+        
+        block[length++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        int count;
+        
+        if(closed) throw new IOException("Stream closed");
+        
+        while(len > 0)
+        {
+            if(length == block.length) submit();
+            
+            count = Math.min(len, block.length - length);
+            
+            System.arraycopy(b, off, block, length, count);
+            
+            length += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        while(!pending.isEmpty() && pending.peek().member.isDone()) drain();
+        
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if(closed) return;
+        
+        closed = true;
+        
+        try(out)
+        {
+            // An empty stream still needs one member to be valid gzip
+            if(length > 0 || members == 0) submit();
+            
+            while(!pending.isEmpty()) drain();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static class Block
+    {
+        private final byte[] data;
+        private final Future<byte[]> member;
+
+        public Block(byte[] data, Future<byte[]> member)
+        {
+            this.data = data;
+            this.member = member;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.CloseableIterator;
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.input.Input;
+import com.invirgance.convirgance.input.InputCursor;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import com.invirgance.convirgance.transform.IdentityTransformer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parses a single raw file on several threads. The mapped file is split into
+ * ranges that start and end on record boundaries, and each range is parsed 
+ * (and optionally transformed) by a worker. Records are handed back either in
+ * source order or in whatever order the workers produce them. Each range 
+ * buffers a bounded number of record batches, so a slow consumer holds back 
+ * the workers rather than filling the heap.
+ * <br><br>
+ * With one thread, or for sources that can't be mapped, the file is read
+ * sequentially by MappedPipeInput.
+ * 
+ * @author jbanes
+ */
+public class ParallelPipeInput implements Input<JSONObject>
+{
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_DEPTH = 8;
+    private static final int MINIMUM_RANGE = 256 * 1024; // characters
+    private static final List<JSONObject> END = new ArrayList<>();
+    
+    private MappedPipeInput input;
+    private int threads;
+    private boolean ordered = true;
+    private IdentityTransformer transformer;
+
+    public ParallelPipeInput(int threads, String... columns)
+    {
+        if(threads < 1) throw new ConvirganceException("Thread count must be at least 1");
+        
+        this.input = new MappedPipeInput(columns);
+        this.threads = threads;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    /**
+     * @param ordered true to return records in source order, false to return
+     *        them as soon as they are parsed
+     */
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+
+    public IdentityTransformer getTransformer()
+    {
+        return transformer;
+    }
+
+    /**
+     * Sets a transformer to run on each record in the worker threads. The
+     * transformer must not depend on the order or number of records it sees.
+     * 
+     * @param transformer per-record transformer or null for none
+     */
+    public void setTransformer(IdentityTransformer transformer)
+    {
+        this.transformer = transformer;
+    }
+    
+    public void setViews(String... views)
+    {
+        input.setViews(views);
+    }
+    
+    /**
+     * @param interned the columns to intern, or null to intern every column
+     *        that isn't a view. See MappedPipeInput.setInterned()
+     */
+    public void setInterned(String... interned)
+    {
+        input.setInterned(interned);
+    }
+    
+    public void setInternThreshold(int internThreshold)
+    {
+        input.setInternThreshold(internThreshold);
+    }
+    
+    /**
+     * @return estimated bytes of heap saved by interning, summed across the
+     *         parse threads
+     */
+    public long getHeapSaved()
+    {
+        return input.getHeapSaved();
+    }
+    
+    private static int nextRecord(CharBuffer chars, int position)
+    {
+        char c;
+        
+        while(position < chars.limit())
+        {
+            c = chars.get(position++);
+            
+            if(c == '\n') return position;
+            if(c == '\r' && (position >= chars.limit() || chars.get(position) != '\n')) return position;
+        }
+        
+        return position;
+    }
+    
+    /**
+     * Splits mapped characters into ranges of roughly equal size that each 
+     * begin at the start of a record.
+     * 
+     * @param chars the mapped file
+     * @param count number of ranges
+     * @return count + 1 boundaries, with range i running from boundaries[i] 
+     *         to boundaries[i+1]
+     */
+    public static int[] split(CharBuffer chars, int count)
+    {
+        var boundaries = new int[count + 1];
+        
+        for(var i=1; i<count; i++)
+        {
+            boundaries[i] = nextRecord(chars, Math.max((int)((long)chars.limit() * i / count), boundaries[i-1]));
+        }
+        
+        boundaries[count] = chars.limit();
+        
+        return boundaries;
+    }
+
+    @Override
+    public InputCursor<JSONObject> read(Source source)
+    {
+        var file = (source instanceof FileSource) ? ((FileSource)source).getFile() : null;
+        
+        if(threads == 1 || file == null || file.length() > Integer.MAX_VALUE)
+        {
+            return new InputCursor<JSONObject>() {
+                @Override
+                public CloseableIterator<JSONObject> iterator()
+                {
+                    return new TransformedIterator(input.read(source).iterator());
+                }
+            };
+        }
+        
+        return new InputCursor<JSONObject>() {
+            @Override
+            public CloseableIterator<JSONObject> iterator()
+            {
+                var chars = MappedPipeInput.map(file);
+                var ranges = Math.max(1, Math.min(threads * 4, chars.limit() / MINIMUM_RANGE));
+                
+                if(ranges == 1) return new TransformedIterator(input.read(chars, 0, chars.limit()));
+                
+                return new ParallelIterator(chars, split(chars, ranges));
+            }
+        };
+    }
+    
+    private class TransformedIterator implements CloseableIterator<JSONObject>
+    {
+        private final CloseableIterator<JSONObject> iterator;
+
+        public TransformedIterator(CloseableIterator<JSONObject> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            var record = iterator.next();
+            
+            return (transformer == null) ? record : transformer.transform(record);
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            iterator.close();
+        }
+    }
+    
+    private class ParallelIterator implements CloseableIterator<JSONObject>
+    {
+        private final ExecutorService executor;
+        private final List<BlockingQueue<List<JSONObject>>> queues = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final int ranges;
+        
+        private int finished;
+        private Iterator<JSONObject> batch = List.<JSONObject>of().iterator();
+
+        public ParallelIterator(CharBuffer chars, int[] boundaries)
+        {
+            BlockingQueue<List<JSONObject>> shared = new ArrayBlockingQueue<>(QUEUE_DEPTH * threads);
+            
+            this.ranges = boundaries.length - 1;
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                var thread = new Thread(runnable, "pipe-parser");
+                
+                thread.setDaemon(true);
+                
+                return thread;
+            });
+            
+            for(var i=0; i<ranges; i++)
+            {
+                var queue = ordered ? new ArrayBlockingQueue<List<JSONObject>>(QUEUE_DEPTH) : shared;
+                var start = boundaries[i];
+                var end = boundaries[i+1];
+                
+                queues.add(queue);
+                
+                // Tasks start in submission order, so the range being consumed is always running
+                executor.execute(() -> parse(chars, start, end, queue));
+            }
+            
+            executor.shutdown();
+        }
+        
+        private void parse(CharBuffer chars, int start, int end, BlockingQueue<List<JSONObject>> queue)
+        {
+            var records = new ArrayList<JSONObject>(BATCH_SIZE);
+            
+            try
+            {
+                try(var iterator = new TransformedIterator(input.read(chars, start, end)))
+                {
+                    while(iterator.hasNext() && failure.get() == null)
+                    {
+                        records.add(iterator.next());
+                        
+                        if(records.size() < BATCH_SIZE) continue;
+                        
+                        queue.put(records);
+                        records = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                
+                if(!records.isEmpty()) queue.put(records);
+            }
+            catch(InterruptedException e)
+            {
+                return; // Consumer closed the iterator
+            }
+            catch(Throwable t)
+            {
+                failure.compareAndSet(null, t);
+            }
+            
+            try
+            {
+                queue.put(END);
+            }
+            catch(InterruptedException e)
+            {
+                // Consumer closed the iterator
+            }
+        }
+        
+        private void checkFailure()
+        {
+            var t = failure.get();
+            
+            if(t == null) return;
+            
+            close();
+            
+            if(t instanceof RuntimeException) throw (RuntimeException)t;
+            if(t instanceof Error) throw (Error)t;
+            
+            throw new ConvirganceException(t);
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            List<JSONObject> next;
+            
+            while(!batch.hasNext())
+            {
+                checkFailure();
+                
+                if(finished >= ranges) return false;
+                
+                try
+                {
+                    next = queues.get(ordered ? finished : 0).take();
+                }
+                catch(InterruptedException e)
+                {
+                    close();
+                    throw new ConvirganceException(e);
+                }
+                
+                if(next == END) finished++;
+                else batch = next.iterator();
+            }
+            
+            return true;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            if(!hasNext()) throw new NoSuchElementException();
+            
+            return batch.next();
+        }
+
+        @Override
+        public void close()
+        {
+            finished = ranges;
+            batch = List.<JSONObject>of().iterator();
+            
+            executor.shutdownNow();
+        }
+    }
+}
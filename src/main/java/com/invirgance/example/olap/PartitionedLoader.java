@@ -0,0 +1,274 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+
+/**
+ * Splits the records of one table across several connections. Each 
+ * connection runs the wrapped loader over its own partition of the records
+ * and commits it independently. Records are dealt out in batches through a
+ * shared bounded queue, so a partition whose connection is faster simply 
+ * takes more batches and a slow database holds back reading.
+ * <br><br>
+ * If a partition fails, or reading the records fails, the partitions that
+ * have not finished are stopped and roll back. Partitions that already 
+ * committed stay committed, and nothing records which ones did, so use a
+ * staging table if the table must be loaded all or nothing or the load may
+ * need to be resumed.
+ * 
+ * @author jbanes
+ */
+public class PartitionedLoader implements BulkLoader
+{
+    private static final List<JSONObject> END = new ArrayList<>();
+    
+    private final BulkLoader loader;
+    private final int connections;
+    
+    private int batchSize = 1000;
+
+    /**
+     * @param loader the loader run on each connection
+     * @param connections number of connections loading at the same time
+     */
+    public PartitionedLoader(BulkLoader loader, int connections)
+    {
+        this.loader = loader;
+        this.connections = connections;
+    }
+
+    public BulkLoader getLoader()
+    {
+        return loader;
+    }
+
+    public int getConnections()
+    {
+        return connections;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize number of records dealt to a partition at a time
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String getName()
+    {
+        return loader.getName();
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return loader.isSupported(url);
+    }
+    
+    private static ExecutorService createExecutor(int connections)
+    {
+        return Executors.newFixedThreadPool(connections, runnable -> {
+            var thread = new Thread(runnable, "partition-loader");
+            
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+    }
+    
+    private static void rethrow(Throwable t)
+    {
+        if(t instanceof RuntimeException) throw (RuntimeException)t;
+        if(t instanceof Error) throw (Error)t;
+
+        throw new ConvirganceException(t);
+    }
+
+    @Override
+    public void load(DataSource source, TableExtractor.CreateTable create, Iterable<JSONObject> records)
+    {
+        var queue = new ArrayBlockingQueue<List<JSONObject>>(connections * 2);
+        var failure = new AtomicReference<Throwable>();
+        var executor = createExecutor(connections);
+        var futures = new ArrayList<Future<?>>();
+        var batch = new ArrayList<JSONObject>(batchSize);
+        
+        try
+        {
+            for(int i=0; i<connections; i++)
+            {
+                futures.add(executor.submit(() -> {
+                    try
+                    {
+                        loader.load(source, create, new Partition(queue, failure));
+                    }
+                    catch(Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                }));
+            }
+            
+            for(JSONObject record : records)
+            {
+                batch.add(record);
+                
+                if(batch.size() < batchSize) continue;
+                
+                deal(queue, failure, batch);
+                
+                batch = new ArrayList<>(batchSize);
+            }
+            
+            if(!batch.isEmpty()) deal(queue, failure, batch);
+            
+            // One end marker per partition, each partition stops at the first it sees
+            for(int i=0; i<connections; i++) deal(queue, failure, END);
+            
+        }
+        catch(Throwable t)
+        {
+            // Stops the partitions that are still loading so they roll back
+            failure.compareAndSet(null, t);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        
+        // Every partition has committed or rolled back once its task is done
+        for(var future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch(Exception e)
+            {
+                failure.compareAndSet(null, e);
+            }
+        }
+        
+        if(failure.get() != null) rethrow(failure.get());
+    }
+    
+    private void deal(BlockingQueue<List<JSONObject>> queue, AtomicReference<Throwable> failure, List<JSONObject> batch) throws InterruptedException
+    {
+        // Poll so that a failed partition can't leave the reader waiting forever
+        while(!queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+        {
+            if(failure.get() != null) rethrow(failure.get());
+        }
+    }
+    
+    private static class Partition implements Iterable<JSONObject>, Iterator<JSONObject>
+    {
+        private final BlockingQueue<List<JSONObject>> queue;
+        private final AtomicReference<Throwable> failure;
+        
+        private Iterator<JSONObject> batch = List.<JSONObject>of().iterator();
+        private boolean finished;
+
+        public Partition(BlockingQueue<List<JSONObject>> queue, AtomicReference<Throwable> failure)
+        {
+            this.queue = queue;
+            this.failure = failure;
+        }
+        
+        private void checkFailure()
+        {
+            // Failing the loader makes it roll back rather than commit a partial partition
+            if(failure.get() != null) throw new ConvirganceException("Partition stopped after another partition failed", failure.get());
+        }
+        
+        private List<JSONObject> takeBatch()
+        {
+            List<JSONObject> next;
+            
+            try
+            {
+                while((next = queue.poll(100, TimeUnit.MILLISECONDS)) == null) checkFailure();
+            }
+            catch(InterruptedException e)
+            {
+                throw new ConvirganceException(e);
+            }
+            
+            return next;
+        }
+
+        @Override
+        public Iterator<JSONObject> iterator()
+        {
+            return this;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            List<JSONObject> next;
+            
+            while(!batch.hasNext())
+            {
+                checkFailure();
+                
+                if(finished) return false;
+                
+                next = takeBatch();
+                
+                if(next == END) finished = true;
+                else batch = next.iterator();
+            }
+            
+            return true;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            if(!hasNext()) throw new NoSuchElementException();
+            
+            return batch.next();
+        }
+    }
+}
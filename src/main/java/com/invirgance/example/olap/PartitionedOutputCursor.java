@@ -0,0 +1,228 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.OutputCursor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Routes records into year=YYYY/month=MM partitions by a date column. Only a
+ * bounded number of partitions are kept open at once. When another partition
+ * is needed, the least recently used one is closed. None of the formats can
+ * be appended to, so a partition that is opened again gets a new part file.
+ * 
+ * Date keys in the yyyymmdd form used by the fact tables, dates, times and 
+ * ISO-8601 strings are understood. Records with a null date are written to
+ * the year=__HIVE_DEFAULT_PARTITION__ partition.
+ * 
+ * @author jbanes
+ */
+public class PartitionedOutputCursor implements OutputCursor
+{
+    public static final String DEFAULT_PARTITION = "year=__HIVE_DEFAULT_PARTITION__";
+    
+    private final String column;
+    private final int maxOpen;
+    private final Opener opener;
+    
+    private final LinkedHashMap<String,OutputCursor> open = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String,Integer> parts = new HashMap<>();
+    
+    private Object value;
+    private OutputCursor cursor;
+
+    /**
+     * @param column the date column to partition by
+     * @param maxOpen the maximum number of partitions open at once
+     * @param opener opens the cursor for a part file of a partition
+     */
+    public PartitionedOutputCursor(String column, int maxOpen, Opener opener)
+    {
+        if(maxOpen < 1) throw new ConvirganceException("At least one partition must be open");
+        
+        this.column = column;
+        this.maxOpen = maxOpen;
+        this.opener = opener;
+    }
+    
+    /**
+     * @return the number of partitions written
+     */
+    public int getPartitions()
+    {
+        return parts.size();
+    }
+    
+    /**
+     * @return the number of part files written, which is more than the
+     *         number of partitions if any partition was closed and reopened
+     */
+    public int getPartFiles()
+    {
+        var count = 0;
+        
+        for(var part : parts.values()) count += part;
+        
+        return count;
+    }
+    
+    private static String getPartition(int year, int month)
+    {
+        return String.format("year=%04d/month=%02d", year, month);
+    }
+    
+    private static String getPartition(long key)
+    {
+        var month = (int)(key / 100 % 100);
+        
+        if(key < 10000101 || key > 99991231 || month < 1 || month > 12) 
+        {
+            throw new ConvirganceException("Date key " + key + " is not in yyyymmdd form");
+        }
+        
+        return getPartition((int)(key / 10000), month);
+    }
+    
+    /**
+     * @param value the value of the date column
+     * @return the partition path for the value
+     */
+    public static String getPartition(Object value)
+    {
+        String text;
+        
+        if(value == null) return DEFAULT_PARTITION;
+        if(value instanceof Integer || value instanceof Long) return getPartition(((Number)value).longValue());
+        if(value instanceof LocalDate) return getPartition(((LocalDate)value).getYear(), ((LocalDate)value).getMonthValue());
+        if(value instanceof LocalDateTime) return getPartition(((LocalDateTime)value).getYear(), ((LocalDateTime)value).getMonthValue());
+        if(value instanceof Date) return getPartition(LocalDateTime.ofInstant(((Date)value).toInstant(), ZoneOffset.UTC));
+        
+        text = value.toString().trim();
+        
+        if(text.length() == 8 && text.chars().allMatch(Character::isDigit)) return getPartition(Long.parseLong(text));
+        if(text.length() >= 7 && text.charAt(4) == '-') return getPartition(LocalDate.parse(text.substring(0, 7) + "-01"));
+        
+        throw new ConvirganceException("Can't partition by value " + value);
+    }
+    
+    private OutputCursor open(String partition)
+    {
+        var part = parts.getOrDefault(partition, 0);
+        var cursor = open.get(partition);
+        
+        Map.Entry<String,OutputCursor> eldest;
+        
+        if(cursor != null) return cursor;
+        
+        if(open.size() >= maxOpen)
+        {
+            eldest = open.entrySet().iterator().next();
+            
+            open.remove(eldest.getKey());
+            close(eldest.getValue());
+        }
+        
+        cursor = opener.open(partition, part);
+        
+        open.put(partition, cursor);
+        parts.put(partition, part + 1);
+        
+        return cursor;
+    }
+    
+    private void close(OutputCursor cursor)
+    {
+        try
+        {
+            cursor.close();
+        }
+        catch(RuntimeException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+
+    @Override
+    public void write(JSONObject record)
+    {
+        var value = record.get(column);
+        
+        // Records usually arrive in date order, so skip the lookup for runs of the same value
+        if(cursor == null || !Objects.equals(value, this.value))
+        {
+            this.cursor = open(getPartition(value));
+            this.value = value;
+        }
+        
+        cursor.write(record);
+    }
+
+    @Override
+    public void close()
+    {
+        ConvirganceException exception = null;
+        
+        // Close everything even if one of the partitions fails
+        for(OutputCursor cursor : open.values())
+        {
+            try
+            {
+                cursor.close();
+            }
+            catch(Exception e)
+            {
+                if(exception == null) exception = new ConvirganceException(e);
+                else exception.addSuppressed(e);
+            }
+        }
+        
+        open.clear();
+        
+        this.value = null;
+        this.cursor = null;
+        
+        if(exception != null) throw exception;
+    }
+    
+    public static interface Opener
+    {
+        /**
+         * @param partition the partition path, such as year=2011/month=07
+         * @param part the number of the part file within the partition
+         * @return a cursor writing the part file
+         */
+        public OutputCursor open(String partition, int part);
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.CloseableIterator;
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.transform.IdentityTransformer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the reading and transforming of records on their own threads so that
+ * they overlap with whatever consumes the records, such as writing files or
+ * sending JDBC batches. Records are passed between the stages in batches 
+ * through bounded queues:
+ * 
+ * <pre>
+ * reader -&gt; [queue] -&gt; transformer -&gt; [queue] -&gt; consumer
+ * </pre>
+ * 
+ * The consumer is the thread iterating over the pipeline. The transformer
+ * stage is left out if no transformer is set. A full queue blocks the stage
+ * feeding it, so a slow consumer holds back reading rather than filling the
+ * heap. A failure in any stage stops the others and is rethrown to the 
+ * consumer, and closing the pipeline stops the stages and closes the source.
+ * <br><br>
+ * Stages run on virtual threads when the JVM supports them (Java 21 and 
+ * up), and on daemon platform threads otherwise. Set 
+ * <code>-Dadventureworks.virtual=false</code> to always use platform threads.
+ * 
+ * @author jbanes
+ */
+public class Pipeline implements Iterable<JSONObject>, AutoCloseable
+{
+    private static final List<JSONObject> END = new ArrayList<>();
+    private static final Method VIRTUAL = getVirtualMethod();
+    
+    private final Iterable<JSONObject> source;
+    private final List<PipelineIterator> iterators = new ArrayList<>();
+    
+    private IdentityTransformer transformer;
+    private int batchSize = 1000;
+    private int queueDepth = 8;
+    private Metrics.Stage reader;
+    private Metrics.Stage transform;
+    private Metrics.Stage consumer;
+
+    public Pipeline(Iterable<JSONObject> source)
+    {
+        this.source = source;
+    }
+    
+    public Pipeline(Iterable<JSONObject> source, IdentityTransformer transformer)
+    {
+        this.source = source;
+        this.transformer = transformer;
+    }
+    
+    private static Method getVirtualMethod()
+    {
+        if(!Boolean.parseBoolean(System.getProperty("adventureworks.virtual", "true"))) return null;
+        
+        try
+        {
+            // Looked up at runtime so the project still builds and runs on Java 17
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch(NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * @return true if stages run on virtual threads
+     */
+    public static boolean isVirtual()
+    {
+        return (VIRTUAL != null);
+    }
+    
+    private static ExecutorService createExecutor()
+    {
+        if(VIRTUAL != null)
+        {
+            try
+            {
+                return (ExecutorService)VIRTUAL.invoke(null);
+            }
+            catch(ReflectiveOperationException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+        
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "pipeline-stage");
+            
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+    }
+
+    public IdentityTransformer getTransformer()
+    {
+        return transformer;
+    }
+
+    /**
+     * @param transformer transformer run on its own stage, or null to pass
+     *        records from the reader straight to the consumer
+     */
+    public void setTransformer(IdentityTransformer transformer)
+    {
+        this.transformer = transformer;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        if(batchSize < 1) throw new ConvirganceException("Batch size must be at least 1");
+        
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * @param queueDepth the number of batches each queue holds before the 
+     *        stage feeding it blocks
+     */
+    public void setQueueDepth(int queueDepth)
+    {
+        if(queueDepth < 1) throw new ConvirganceException("Queue depth must be at least 1");
+        
+        this.queueDepth = queueDepth;
+    }
+    
+    /**
+     * Sets the metrics that queue depths and waiting times are recorded in.
+     * Any of the stages may be null.
+     * 
+     * @param reader the stage reading the source
+     * @param transform the stage running the transformer
+     * @param consumer the stage consuming the records
+     */
+    public void setStages(Metrics.Stage reader, Metrics.Stage transform, Metrics.Stage consumer)
+    {
+        this.reader = reader;
+        this.transform = transform;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public Iterator<JSONObject> iterator()
+    {
+        var iterator = new PipelineIterator();
+        
+        synchronized(iterators)
+        {
+            iterators.add(iterator);
+        }
+        
+        return iterator;
+    }
+    
+    /**
+     * Stops the stages of every iteration that is still running.
+     */
+    @Override
+    public void close()
+    {
+        synchronized(iterators)
+        {
+            for(PipelineIterator iterator : iterators) iterator.close();
+            
+            iterators.clear();
+        }
+    }
+    
+    private static List<JSONObject> take(BlockingQueue<List<JSONObject>> queue, Metrics.Stage stage, int capacity) throws InterruptedException
+    {
+        var start = System.nanoTime();
+        var depth = queue.size();
+        var batch = queue.take();
+        
+        if(stage == null) return batch;
+        
+        stage.sampleQueue(depth, capacity);
+        stage.addStarved(System.nanoTime() - start);
+        
+        return batch;
+    }
+    
+    private static void put(BlockingQueue<List<JSONObject>> queue, List<JSONObject> batch, Metrics.Stage stage) throws InterruptedException
+    {
+        var start = System.nanoTime();
+        
+        queue.put(batch);
+        
+        if(stage != null) stage.addBlocked(System.nanoTime() - start);
+    }
+    
+    private class PipelineIterator implements CloseableIterator<JSONObject>
+    {
+        private final ExecutorService executor;
+        private final BlockingQueue<List<JSONObject>> output;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        
+        private boolean finished;
+        private Iterator<JSONObject> batch = List.<JSONObject>of().iterator();
+
+        public PipelineIterator()
+        {
+            var queue = new ArrayBlockingQueue<List<JSONObject>>(queueDepth);
+            
+            this.executor = createExecutor();
+            
+            if(transformer == null)
+            {
+                this.output = queue;
+                
+                executor.execute(() -> read(queue));
+            }
+            else
+            {
+                this.output = new ArrayBlockingQueue<>(queueDepth);
+                
+                executor.execute(() -> read(queue));
+                executor.execute(() -> transform(queue, output));
+            }
+            
+            executor.shutdown();
+            started.set(true);
+            
+            // A stage that failed before every stage was submitted left stopping them to us
+            if(failure.get() != null) executor.shutdownNow();
+        }
+        
+        private void read(BlockingQueue<List<JSONObject>> queue)
+        {
+            var records = new ArrayList<JSONObject>(batchSize);
+            Iterator<JSONObject> iterator = null;
+            
+            try
+            {
+                iterator = source.iterator();
+                
+                while(iterator.hasNext())
+                {
+                    records.add(iterator.next());
+                    
+                    if(records.size() < batchSize) continue;
+                    
+                    put(queue, records, reader);
+                    records = new ArrayList<>(batchSize);
+                }
+                
+                if(!records.isEmpty()) put(queue, records, reader);
+                
+                put(queue, END, reader);
+            }
+            catch(InterruptedException e)
+            {
+                // The pipeline was closed or another stage failed
+            }
+            catch(Throwable t)
+            {
+                fail(t);
+            }
+            finally
+            {
+                if(iterator != null) close(iterator);
+            }
+        }
+        
+        private void transform(BlockingQueue<List<JSONObject>> input, BlockingQueue<List<JSONObject>> output)
+        {
+            List<JSONObject> records;
+            
+            try
+            {
+                while((records = take(input, transform, queueDepth)) != END)
+                {
+                    for(var i=0; i<records.size(); i++) records.set(i, transformer.transform(records.get(i)));
+                    
+                    put(output, records, transform);
+                }
+                
+                put(output, END, transform);
+            }
+            catch(InterruptedException e)
+            {
+                // The pipeline was closed or another stage failed
+            }
+            catch(Throwable t)
+            {
+                fail(t);
+            }
+        }
+        
+        private void close(Iterator<JSONObject> iterator)
+        {
+            if(!(iterator instanceof AutoCloseable)) return;
+            
+            try
+            {
+                ((AutoCloseable)iterator).close();
+            }
+            catch(Exception e)
+            {
+                if(failure.get() == null) fail(e);
+            }
+        }
+        
+        private void fail(Throwable t)
+        {
+            if(!failure.compareAndSet(null, t)) return;
+            
+            // Stopping the executor before every stage is submitted would reject the rest
+            if(started.get()) executor.shutdownNow();
+        }
+        
+        private void checkFailure()
+        {
+            var t = failure.get();
+            
+            if(t == null) return;
+            
+            close();
+            
+            if(t instanceof RuntimeException) throw (RuntimeException)t;
+            if(t instanceof Error) throw (Error)t;
+            
+            throw new ConvirganceException(t);
+        }
+        
+        private List<JSONObject> takeBatch() throws InterruptedException
+        {
+            var start = System.nanoTime();
+            var depth = output.size();
+            
+            List<JSONObject> next;
+            
+            // Poll so that a failed stage can't leave the consumer waiting forever
+            while((next = output.poll(100, TimeUnit.MILLISECONDS)) == null) checkFailure();
+            
+            if(consumer != null)
+            {
+                consumer.sampleQueue(depth, queueDepth);
+                consumer.addStarved(System.nanoTime() - start);
+            }
+            
+            return next;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            List<JSONObject> next;
+            
+            while(!batch.hasNext())
+            {
+                checkFailure();
+                
+                if(finished) return false;
+                
+                try
+                {
+                    next = takeBatch();
+                }
+                catch(InterruptedException e)
+                {
+                    close();
+                    throw new ConvirganceException(e);
+                }
+                
+                if(next == END) finished = true;
+                else batch = next.iterator();
+            }
+            
+            return true;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            if(!hasNext()) throw new NoSuchElementException();
+            
+            return batch.next();
+        }
+
+        @Override
+        public void close()
+        {
+            finished = true;
+            batch = List.<JSONObject>of().iterator();
+            
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.dbms.DBMS;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+/**
+ * Loads PostgreSQL tables with COPY FROM STDIN through the driver's CopyManager.
+ * The driver is downloaded at runtime, so its API is reached through 
+ * reflection rather than a compile time dependency.
+ * 
+ * @author jbanes
+ */
+public class PostgresBulkLoader implements BulkLoader
+{
+    private static final SQLDialect DIALECT = new PostgresDialect();
+    
+    @Override
+    public String getName()
+    {
+        return "postgresql";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:postgresql:");
+    }
+    
+    public String getCopySQL(TableExtractor.CreateTable create)
+    {
+        var buffer = new StringBuffer("COPY ");
+        var first = true;
+        
+        // Quoted the same way as the create statement, as Unknown is reserved
+        buffer.append(DIALECT.getIdentifier(create.getTableName()));
+        buffer.append(" (");
+        
+        for(var column : create.getColumnNames())
+        {
+            if(!first) buffer.append(", ");
+            
+            buffer.append(DIALECT.getIdentifier(column));
+            
+            first = false;
+        }
+        
+        buffer.append(") FROM STDIN WITH (FORMAT csv)");
+        
+        return buffer.toString();
+    }
+    
+    private void copy(Connection connection, String sql, Reader reader) throws SQLException
+    {
+        try
+        {
+            var type = Class.forName("org.postgresql.PGConnection", true, connection.getClass().getClassLoader());
+            var api = type.getMethod("getCopyAPI").invoke(connection.unwrap(type));
+            
+            api.getClass().getMethod("copyIn", String.class, Reader.class).invoke(api, sql, reader);
+        }
+        catch(InvocationTargetException e)
+        {
+            if(e.getCause() instanceof SQLException) throw (SQLException)e.getCause();
+            
+            throw new SQLException("COPY failed", e.getCause());
+        }
+        catch(ReflectiveOperationException e)
+        {
+            throw new SQLException("PostgreSQL driver does not provide the copy API", e);
+        }
+    }
+
+    @Override
+    public void load(DataSource source, TableExtractor.CreateTable create, Iterable<JSONObject> records)
+    {
+        var sql = getCopySQL(create);
+        
+        new DBMS(source).update(connection -> {
+            
+            // bytea accepts hex input when prefixed with \x
+            try(var reader = new CSVRecordReader(records, create.getColumnNames(), "\\x"))
+            {
+                copy(connection, sql, reader);
+            }
+        });
+    }
+}
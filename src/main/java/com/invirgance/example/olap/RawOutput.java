@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.output.Output;
+import com.invirgance.convirgance.output.OutputCursor;
+import com.invirgance.convirgance.target.Target;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes records in the format of the AdventureWorks raw files: UTF-16 
+ * little endian with a BOM, one pipe-delimited record per CRLF terminated 
+ * line, no header and an empty field for null. Values are written with 
+ * toString(), so records should hold the strings of the raw format rather
+ * than schema typed values. The format has no escaping, so values must not
+ * contain pipes or line breaks.
+ * 
+ * @author jbanes
+ */
+public class RawOutput implements Output
+{
+    private String[] columns;
+
+    public RawOutput(String... columns)
+    {
+        this.columns = columns;
+    }
+
+    public String[] getColumns()
+    {
+        return columns;
+    }
+
+    public void setColumns(String... columns)
+    {
+        this.columns = columns;
+    }
+
+    @Override
+    public OutputCursor write(Target target)
+    {
+        var writer = new BufferedWriter(new OutputStreamWriter(target.getOutputStream(), StandardCharsets.UTF_16LE), 64 * 1024);
+        
+        try
+        {
+            writer.write('\uFEFF'); // Written as FF FE
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        return new RawCursor(writer);
+    }
+    
+    private class RawCursor implements OutputCursor
+    {
+        private final Writer writer;
+
+        public RawCursor(Writer writer)
+        {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(JSONObject record)
+        {
+            Object value;
+            
+            try
+            {
+                for(var i=0; i<columns.length; i++)
+                {
+                    value = record.get(columns[i]);
+                    
+                    if(i > 0) writer.write('|');
+                    if(value != null) writer.write(value.toString());
+                }
+                
+                writer.write("\r\n");
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                writer.close();
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException(e);
+            }
+        }
+    }
+}
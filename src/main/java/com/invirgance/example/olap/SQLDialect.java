@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+
+/**
+ * Renders the table definitions for a particular database. Each column is 
+ * given the narrowest native type that holds the values of its SQL Server 
+ * type, and tables can carry storage options where the database has them.
+ * The dialect is chosen from the JDBC URL the same way as the bulk loader.
+ * 
+ * @author jbanes
+ */
+public interface SQLDialect
+{
+    /**
+     * @return the name used to select this dialect on the command line
+     */
+    public String getName();
+    
+    /**
+     * @param url JDBC connection URL
+     * @return true if this dialect can be used with the database
+     */
+    public boolean isSupported(String url);
+    
+    /**
+     * @param column a column as declared in the SQL Server DDL
+     * @return the type of the column in this database
+     */
+    public String getType(TableExtractor.CreateColumn column);
+    
+    /**
+     * @param name a column name
+     * @return the name, quoted if it is a reserved word in this database
+     */
+    public default String getIdentifier(String name)
+    {
+        return name;
+    }
+    
+    /**
+     * @param create the table
+     * @param staging true for a staging table that is dropped as soon as its
+     *        rows have been copied into the real table
+     * @return the start of the create statement up to the table name
+     */
+    public default String getCreateTable(TableExtractor.CreateTable create, boolean staging)
+    {
+        return "create table " + create.getTableName();
+    }
+    
+    /**
+     * @param create the table
+     * @param staging true for a staging table
+     * @return storage options following the column definitions, starting 
+     *         with a space, or an empty string
+     */
+    public default String getTableOptions(TableExtractor.CreateTable create, boolean staging)
+    {
+        return "";
+    }
+    
+    /**
+     * @return false if constraints can only be declared when the table is 
+     *         created
+     */
+    public default boolean isAlterSupported()
+    {
+        return true;
+    }
+    
+    public static SQLDialect[] getDialects()
+    {
+        return new SQLDialect[] {
+            new DerbyDialect(),
+            new PostgresDialect(),
+            new MySQLDialect(),
+            new H2Dialect(),
+            new SQLiteDialect(),
+            StandardDialect.INSTANCE
+        };
+    }
+    
+    /**
+     * @param name name of the dialect
+     * @return the dialect
+     */
+    public static SQLDialect getDialect(String name)
+    {
+        for(var dialect : getDialects())
+        {
+            if(dialect.getName().equalsIgnoreCase(name)) return dialect;
+        }
+        
+        throw new ConvirganceException("Unknown dialect: " + name);
+    }
+    
+    /**
+     * @param url JDBC connection URL
+     * @return the dialect of the database, or the standard dialect if there 
+     *         is none for it
+     */
+    public static SQLDialect getDialectForURL(String url)
+    {
+        for(var dialect : getDialects())
+        {
+            if(dialect.isSupported(url)) return dialect;
+        }
+        
+        return StandardDialect.INSTANCE;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+
+/**
+ * Cursor based tokenizer for SQL Server scripts. Tokens are cut directly out
+ * of the underlying text as the cursor advances, so a script of any size is
+ * tokenized in a single linear pass. Whitespace and comments are skipped. 
+ * Bracketed and double quoted identifiers are returned without their quotes,
+ * as are string literals. Every other non-word character is returned as a 
+ * single character symbol.
+ * 
+ * @author jbanes
+ */
+public class SQLLexer
+{
+    public static final int WORD = 1;
+    public static final int IDENTIFIER = 2;
+    public static final int STRING = 3;
+    public static final int SYMBOL = 4;
+    
+    private final CharSequence sql;
+    private final int length;
+    
+    private int position;
+    
+    private String token;
+    private int type;
+    
+    private String peeked;
+    private int peekedType;
+    
+    private int readType;
+
+    public SQLLexer(CharSequence sql)
+    {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+    
+    /**
+     * Advances to the next token.
+     * 
+     * @return the token or null if the end of the script has been reached
+     */
+    public String next()
+    {
+        if(peeked != null)
+        {
+            token = peeked;
+            type = peekedType;
+            peeked = null;
+            
+            return token;
+        }
+        
+        token = read();
+        type = readType;
+        
+        return token;
+    }
+    
+    /**
+     * Returns the token that the next call to next() will return without
+     * advancing the cursor.
+     * 
+     * @return the upcoming token or null if there are no more tokens
+     */
+    public String peek()
+    {
+        if(peeked == null)
+        {
+            peeked = read();
+            peekedType = readType;
+        }
+        
+        return peeked;
+    }
+    
+    public String getToken()
+    {
+        return token;
+    }
+    
+    public int getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Tests if the current token is the given keyword or symbol. Quoted 
+     * identifiers and strings never match, even if their text does.
+     * 
+     * @param keyword keyword to compare against, ignoring case
+     * @return true if the current token is the unquoted keyword
+     */
+    public boolean is(String keyword)
+    {
+        return token != null && (type == WORD || type == SYMBOL) && token.equalsIgnoreCase(keyword);
+    }
+    
+    /**
+     * Same as is() but tests the upcoming token.
+     * 
+     * @param keyword keyword to compare against, ignoring case
+     * @return true if the upcoming token is the unquoted keyword
+     */
+    public boolean isNext(String keyword)
+    {
+        return peek() != null && (peekedType == WORD || peekedType == SYMBOL) && peeked.equalsIgnoreCase(keyword);
+    }
+    
+    /**
+     * Consumes the next token, failing if it isn't the expected keyword or
+     * symbol.
+     * 
+     * @param keyword the expected token
+     */
+    public void expect(String keyword)
+    {
+        if(!isNext(keyword)) throw new ConvirganceException("Expected " + keyword + " but found " + peek() + " at line " + getLine());
+        
+        next();
+    }
+    
+    /**
+     * Computes the line number of the cursor. Only intended for error messages
+     * as it requires rescanning the script.
+     * 
+     * @return the current line number starting from 1
+     */
+    public int getLine()
+    {
+        var line = 1;
+        
+        for(var i=0; i<position; i++)
+        {
+            if(sql.charAt(i) == '\n') line++;
+        }
+        
+        return line;
+    }
+    
+    private boolean isWordCharacter(char c)
+    {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '@' || c == '#' || c == '$';
+    }
+    
+    private int find(char c, int start, String description)
+    {
+        for(var i=start; i<length; i++)
+        {
+            if(sql.charAt(i) == c) return i;
+        }
+        
+        position = start;
+        
+        throw new ConvirganceException("Unterminated " + description + " at line " + getLine());
+    }
+    
+    private int findQuote(char quote, int start, String description)
+    {
+        var index = find(quote, start, description);
+        
+        // Doubled quotes are escapes of the quote character
+        while(index+1 < length && sql.charAt(index+1) == quote)
+        {
+            index = find(quote, index+2, description);
+        }
+        
+        return index;
+    }
+    
+    private String quoted(int start, int end, char quote)
+    {
+        var value = sql.subSequence(start, end).toString();
+        var escape = String.valueOf(quote) + quote;
+        
+        if(value.indexOf(quote) >= 0) value = value.replace(escape, String.valueOf(quote));
+        
+        return value;
+    }
+    
+    private String read()
+    {
+        int start;
+        int end;
+        char c;
+        
+        while(position < length)
+        {
+            c = sql.charAt(position);
+            
+            if(Character.isWhitespace(c))
+            {
+                position++;
+            }
+            else if(c == '-' && position+1 < length && sql.charAt(position+1) == '-')
+            {
+                while(position < length && sql.charAt(position) != '\n') position++;
+            }
+            else if(c == '/' && position+1 < length && sql.charAt(position+1) == '*')
+            {
+                end = position + 2;
+                
+                do
+                {
+                    end = find('*', end, "comment") + 1;
+                }
+                while(end >= length || sql.charAt(end) != '/');
+                
+                position = end + 1;
+            }
+            else if(c == '[')
+            {
+                start = position + 1;
+                end = findQuote(']', start, "identifier");
+                position = end + 1;
+                readType = IDENTIFIER;
+                
+                return quoted(start, end, ']');
+            }
+            else if(c == '"' || c == '\'')
+            {
+                start = position + 1;
+                end = findQuote(c, start, c == '"' ? "identifier" : "string");
+                position = end + 1;
+                readType = (c == '"') ? IDENTIFIER : STRING;
+                
+                return quoted(start, end, c);
+            }
+            else if(isWordCharacter(c))
+            {
+                start = position;
+                
+                while(position < length && isWordCharacter(sql.charAt(position))) position++;
+                
+                readType = WORD;
+                
+                return sql.subSequence(start, position).toString();
+            }
+            else
+            {
+                position++;
+                readType = SYMBOL;
+                
+                return String.valueOf(c);
+            }
+        }
+        
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+/**
+ * SQLite only has a handful of storage classes and sizes integers per 
+ * value, so every integer column is an integer, which also makes IDENTITY
+ * columns aliases of the rowid. Text, dates and timestamps are stored as 
+ * text. SQLite can't add constraints to an existing table, so the keys and
+ * foreign keys are declared when the table is created.
+ * 
+ * @author jbanes
+ */
+public class SQLiteDialect extends StandardDialect
+{
+    @Override
+    public String getName()
+    {
+        return "sqlite";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return url.startsWith("jdbc:sqlite:");
+    }
+
+    @Override
+    public String getType(TableExtractor.CreateColumn column)
+    {
+        switch(column.getBaseType())
+        {
+            case "bit":
+            case "tinyint":
+            case "smallint":
+            case "int":
+            case "bigint":
+                return "integer";
+                
+            case "money":
+            case "smallmoney":
+            case "decimal":
+            case "numeric":
+                return "numeric";
+                
+            case "float":
+            case "real":
+                return "real";
+                
+            case "image":
+            case "binary":
+            case "varbinary":
+                return "blob";
+                
+            default:
+                return "text";
+        }
+    }
+
+    @Override
+    public boolean isAlterSupported()
+    {
+        return false;
+    }
+}
@@ -0,0 +1,698 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.CloseableIterator;
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.transform.IdentityTransformer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Synthesizes a larger copy of a table from the rows of its raw file. The 
+ * scaled table is made of a number of copies of the seed rows, so the values
+ * of every column keep the distribution they have in the real data. Only the
+ * keys change between copies:
+ * 
+ * <ul>
+ *   <li>Identity columns and the other columns of primary keys and unique
+ *       constraints are shifted past the values used by the previous copy.
+ *       Strings such as <code>AW00000001</code> have their numeric suffix
+ *       shifted.</li>
+ *   <li>Foreign keys to another scaled table are shifted the same way to 
+ *       point into one of its copies. Self references stay within the row's 
+ *       copy so that hierarchies are preserved. Foreign keys that are part
+ *       of a key use a copy derived from the row's copy so that keys stay 
+ *       unique, while all others pick a copy at random.</li>
+ * </ul>
+ * 
+ * Tables whose keys can't be shifted, such as DimDate with its natural date
+ * keys, are never scaled, which also keeps the dates of every fact within the
+ * range of the seed. Tables with a key that can only be shifted through a 
+ * foreign key are scaled as far as the referenced table allows.
+ * <br><br>
+ * Every row is a pure function of its position and the random seed, so the 
+ * output is the same no matter how many threads generate it. The rows are 
+ * split into ranges that are generated in parallel and handed back in order
+ * through bounded queues, so memory use doesn't grow with the scale.
+ * 
+ * @author jbanes
+ */
+public class ScaledTable
+{
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_DEPTH = 4;
+    private static final long MINIMUM_RANGE = 64 * 1024; // rows
+    private static final List<JSONObject> END = new ArrayList<>();
+    
+    private final TableExtractor.CreateTable create;
+    private final String[] columns;
+    private final List<String[]> rows = new ArrayList<>();
+    private final KeyColumn[] keys;
+    private final List<Reference> references = new ArrayList<>();
+    private final long copies;
+    private final long seed;
+    
+    private int threads = 1;
+    private IdentityTransformer transformer;
+
+    /**
+     * @param create the table
+     * @param records the seed records parsed from the table's raw file
+     * @param scale the number of copies wanted
+     * @param seed random seed choosing the copy each foreign key points to
+     * @param tables scaled tables that foreign keys may refer to by name. 
+     *        Tables that aren't included are treated as not being generated.
+     */
+    public ScaledTable(TableExtractor.CreateTable create, Iterable<JSONObject> records, long scale, long seed, Map<String,ScaledTable> tables)
+    {
+        var foreign = new HashSet<String>();
+        var unique = new HashSet<String>();
+        var scalable = LoadDatabase.isFact(create);
+        var capacity = scale;
+        
+        ScaledTable referenced;
+        String[] row;
+        
+        this.create = create;
+        this.columns = create.getColumnNames();
+        this.keys = new KeyColumn[columns.length];
+        this.seed = seed;
+        
+        for(JSONObject record : records)
+        {
+            if(record.isEmpty()) continue; // Blank lines
+            
+            row = new String[columns.length];
+            
+            for(var i=0; i<columns.length; i++)
+            {
+                if(record.get(columns[i]) != null) row[i] = record.get(columns[i]).toString();
+            }
+            
+            rows.add(row);
+        }
+        
+        // Foreign keys into tables that aren't generated are left to be shifted as the table's own keys
+        for(var constraint : create.constraints)
+        {
+            if(!constraint.isForeignKey()) continue;
+            if(!isSelfReference(constraint) && !tables.containsKey(constraint.getReferencedTableName())) continue;
+            
+            foreign.addAll(constraint.columns);
+        }
+        
+        for(var constraint : create.constraints)
+        {
+            if(constraint.isPrimaryKey() || constraint.type.equals("UNIQUE")) unique.addAll(constraint.columns);
+        }
+        
+        for(var i=0; i<columns.length; i++)
+        {
+            if(isIdentity(create.columns.get(i))) scalable = true;
+        }
+        
+        for(var i=0; i<columns.length; i++)
+        {
+            if(!isIdentity(create.columns.get(i)) && (!unique.contains(columns[i]) || foreign.contains(columns[i]))) continue;
+            
+            keys[i] = KeyColumn.create(create.columns.get(i), rows, i);
+            
+            // An identity that can't be shifted would be duplicated by every copy
+            if(keys[i] == null && isIdentity(create.columns.get(i))) scalable = false;
+            if(keys[i] != null) capacity = Math.min(capacity, keys[i].getCapacity());
+        }
+        
+        for(var constraint : create.constraints)
+        {
+            if(!constraint.isForeignKey() || isSelfReference(constraint)) continue;
+            
+            referenced = tables.get(constraint.getReferencedTableName());
+            
+            if(referenced == null || referenced.copies < 2) continue;
+            
+            references.add(new Reference(referenced, indexesOf(constraint.columns), referenced.indexesOf(constraint.referencedColumns), !containsAny(unique, constraint.columns)));
+        }
+        
+        for(var constraint : create.constraints)
+        {
+            if(constraint.isPrimaryKey() || constraint.type.equals("UNIQUE")) capacity = Math.min(capacity, getCapacity(constraint));
+        }
+        
+        this.copies = (scalable && !rows.isEmpty()) ? Math.max(1, capacity) : 1;
+        
+        // Self references need the table's own keys, so they come last
+        for(var constraint : create.constraints)
+        {
+            if(!constraint.isForeignKey() || !isSelfReference(constraint) || copies < 2) continue;
+            
+            references.add(new Reference(this, indexesOf(constraint.columns), indexesOf(constraint.referencedColumns), false));
+        }
+    }
+    
+    private static boolean isIdentity(TableExtractor.CreateColumn column)
+    {
+        return column.identity != null && column.identity.startsWith("IDENTITY");
+    }
+    
+    private static boolean containsAny(Set<String> set, List<String> values)
+    {
+        for(String value : values)
+        {
+            if(set.contains(value)) return true;
+        }
+        
+        return false;
+    }
+    
+    private boolean isSelfReference(TableExtractor.CreateConstraint constraint)
+    {
+        return create.getTableName().equalsIgnoreCase(constraint.getReferencedTableName());
+    }
+    
+    private int indexOf(String column)
+    {
+        for(var i=0; i<columns.length; i++)
+        {
+            if(columns[i].equalsIgnoreCase(column)) return i;
+        }
+        
+        throw new ConvirganceException("Column " + column + " not found in " + create.getTableName() + "!");
+    }
+    
+    private int[] indexesOf(List<String> columns)
+    {
+        var indexes = new int[columns.size()];
+        
+        for(var i=0; i<indexes.length; i++) indexes[i] = indexOf(columns.get(i));
+        
+        return indexes;
+    }
+    
+    /**
+     * A key stays unique across as many copies as its most distinguishing 
+     * column allows. Columns that are never shifted allow only one.
+     */
+    private long getCapacity(TableExtractor.CreateConstraint constraint)
+    {
+        var capacity = 1L;
+        int index;
+        
+        for(String column : constraint.columns)
+        {
+            index = indexOf(column);
+            
+            if(keys[index] != null) capacity = Math.max(capacity, keys[index].getCapacity());
+            
+            for(Reference reference : references)
+            {
+                if(!reference.random && reference.contains(index)) capacity = Math.max(capacity, reference.table.copies);
+            }
+        }
+        
+        return capacity;
+    }
+
+    public TableExtractor.CreateTable getCreateTable()
+    {
+        return create;
+    }
+    
+    /**
+     * @return the number of copies of the seed rows, which is one for tables
+     *         that can't be scaled
+     */
+    public long getCopies()
+    {
+        return copies;
+    }
+    
+    public long getSeedRowCount()
+    {
+        return rows.size();
+    }
+    
+    public long getRowCount()
+    {
+        return rows.size() * copies;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public void setThreads(int threads)
+    {
+        if(threads < 1) throw new ConvirganceException("Thread count must be at least 1");
+        
+        this.threads = threads;
+    }
+
+    public IdentityTransformer getTransformer()
+    {
+        return transformer;
+    }
+
+    /**
+     * Sets a transformer to run on each record in the worker threads. The
+     * transformer must not depend on the order or number of records it sees.
+     * 
+     * @param transformer per-record transformer or null for none
+     */
+    public void setTransformer(IdentityTransformer transformer)
+    {
+        this.transformer = transformer;
+    }
+    
+    private static long mix(long z)
+    {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        
+        return z ^ (z >>> 31);
+    }
+    
+    private long random(long index, int stream)
+    {
+        return mix(mix(seed ^ create.getTableName().hashCode()) + index * 0x9e3779b97f4a7c15L + stream);
+    }
+    
+    /**
+     * Generates a single row of the scaled table. Values are the strings of 
+     * the raw file, with null for empty fields.
+     * 
+     * @param index position of the row, from zero to getRowCount() - 1
+     * @return the record
+     */
+    public JSONObject getRecord(long index)
+    {
+        var row = rows.get((int)(index % rows.size()));
+        var copy = index / rows.size();
+        var values = row.clone();
+        var record = new JSONObject(true);
+        
+        Reference reference;
+        long target;
+        
+        if(copy > 0)
+        {
+            for(var i=0; i<keys.length; i++)
+            {
+                if(keys[i] != null && values[i] != null) values[i] = keys[i].shift(values[i], copy);
+            }
+        }
+        
+        for(var i=0; i<references.size(); i++)
+        {
+            reference = references.get(i);
+            
+            if(reference.table == this) target = copy;
+            else if(reference.random) target = Math.floorMod(random(index, i), reference.table.copies);
+            else target = copy % reference.table.copies;
+            
+            reference.shift(row, values, target);
+        }
+        
+        for(var i=0; i<columns.length; i++) record.put(columns[i], values[i]);
+        
+        return (transformer == null) ? record : transformer.transform(record);
+    }
+    
+    /**
+     * @return all rows of the scaled table in order
+     */
+    public Iterable<JSONObject> read()
+    {
+        return () -> {
+            var total = getRowCount();
+            var ranges = (int)Math.max(1, Math.min(threads * 4, total / MINIMUM_RANGE));
+            
+            if(threads == 1 || ranges == 1) return new RangeIterator(0, total);
+            
+            return new ParallelIterator(ranges);
+        };
+    }
+    
+    private class RangeIterator implements CloseableIterator<JSONObject>
+    {
+        private long index;
+        private long end;
+
+        public RangeIterator(long start, long end)
+        {
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return index < end;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            if(index >= end) throw new NoSuchElementException();
+            
+            return getRecord(index++);
+        }
+
+        @Override
+        public void close()
+        {
+            index = end;
+        }
+    }
+    
+    private class ParallelIterator implements CloseableIterator<JSONObject>
+    {
+        private final ExecutorService executor;
+        private final List<BlockingQueue<List<JSONObject>>> queues = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final int ranges;
+        
+        private int finished;
+        private Iterator<JSONObject> batch = List.<JSONObject>of().iterator();
+
+        public ParallelIterator(int ranges)
+        {
+            var total = getRowCount();
+            
+            this.ranges = ranges;
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                var thread = new Thread(runnable, "table-generator");
+                
+                thread.setDaemon(true);
+                
+                return thread;
+            });
+            
+            for(var i=0; i<ranges; i++)
+            {
+                var queue = new ArrayBlockingQueue<List<JSONObject>>(QUEUE_DEPTH);
+                var start = total * i / ranges;
+                var end = total * (i+1) / ranges;
+                
+                queues.add(queue);
+                
+                // Tasks start in submission order, so the range being consumed is always running
+                executor.execute(() -> generate(start, end, queue));
+            }
+            
+            executor.shutdown();
+        }
+        
+        private void generate(long start, long end, BlockingQueue<List<JSONObject>> queue)
+        {
+            var records = new ArrayList<JSONObject>(BATCH_SIZE);
+            
+            try
+            {
+                for(var index=start; index<end && failure.get() == null; index++)
+                {
+                    records.add(getRecord(index));
+                    
+                    if(records.size() < BATCH_SIZE) continue;
+                    
+                    queue.put(records);
+                    records = new ArrayList<>(BATCH_SIZE);
+                }
+                
+                if(!records.isEmpty()) queue.put(records);
+            }
+            catch(InterruptedException e)
+            {
+                return; // Consumer closed the iterator
+            }
+            catch(Throwable t)
+            {
+                failure.compareAndSet(null, t);
+            }
+            
+            try
+            {
+                queue.put(END);
+            }
+            catch(InterruptedException e)
+            {
+                // Consumer closed the iterator
+            }
+        }
+        
+        private void checkFailure()
+        {
+            var t = failure.get();
+            
+            if(t == null) return;
+            
+            close();
+            
+            if(t instanceof RuntimeException) throw (RuntimeException)t;
+            if(t instanceof Error) throw (Error)t;
+            
+            throw new ConvirganceException(t);
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            List<JSONObject> next;
+            
+            while(!batch.hasNext())
+            {
+                checkFailure();
+                
+                if(finished >= ranges) return false;
+                
+                try
+                {
+                    next = queues.get(finished).take();
+                }
+                catch(InterruptedException e)
+                {
+                    close();
+                    throw new ConvirganceException(e);
+                }
+                
+                if(next == END) finished++;
+                else batch = next.iterator();
+            }
+            
+            return true;
+        }
+
+        @Override
+        public JSONObject next()
+        {
+            if(!hasNext()) throw new NoSuchElementException();
+            
+            return batch.next();
+        }
+
+        @Override
+        public void close()
+        {
+            finished = ranges;
+            batch = List.<JSONObject>of().iterator();
+            
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * A key column whose values can be shifted into a range of their own for
+     * each copy. Integers are shifted directly. Strings must end in digits, 
+     * which are shifted and padded back to their original width.
+     */
+    private static class KeyColumn
+    {
+        private final boolean text;
+        private final long span;
+        private final long capacity;
+
+        private KeyColumn(boolean text, long span, long capacity)
+        {
+            this.text = text;
+            this.span = span;
+            this.capacity = capacity;
+        }
+        
+        private static int getSuffix(String value)
+        {
+            var start = value.length();
+            
+            while(start > 0 && Character.isDigit(value.charAt(start-1))) start--;
+            
+            return start;
+        }
+        
+        private static long getLength(String type)
+        {
+            var open = type.indexOf('(');
+            var close = type.indexOf(')');
+            
+            if(open < 0 || close < open) return -1;
+            
+            try
+            {
+                return Long.parseLong(type.substring(open+1, close).trim());
+            }
+            catch(NumberFormatException e)
+            {
+                return -1; // e.g. varchar(max)
+            }
+        }
+        
+        /**
+         * @return the key or null if some value of the column can't be shifted
+         */
+        public static KeyColumn create(TableExtractor.CreateColumn column, List<String[]> rows, int index)
+        {
+            var type = column.getType();
+            var text = type.contains("char");
+            var min = Long.MAX_VALUE;
+            var max = Long.MIN_VALUE;
+            var limit = type.equals("int") ? Integer.MAX_VALUE : Long.MAX_VALUE;
+            var length = text ? getLength(type) : -1;
+            var prefix = 0;
+            
+            String value;
+            long number;
+            int suffix;
+            
+            if(!text && !type.equals("int") && !type.equals("bigint")) return null;
+            
+            for(String[] row : rows)
+            {
+                value = row[index];
+                
+                if(value == null) continue;
+                
+                suffix = text ? getSuffix(value) : 0;
+                
+                // Longer suffixes could overflow once shifted
+                if(suffix == value.length() || value.length() - suffix > 17) return null;
+                
+                try
+                {
+                    number = Long.parseLong(value.substring(suffix));
+                }
+                catch(NumberFormatException e)
+                {
+                    return null;
+                }
+                
+                min = Math.min(min, number);
+                max = Math.max(max, number);
+                prefix = Math.max(prefix, suffix);
+            }
+            
+            if(min > max) return null;
+            
+            if(text) limit = (length < 0) ? 99999999999999999L : (long)Math.pow(10, Math.min(17, length - prefix)) - 1;
+            
+            return new KeyColumn(text, max - min + 1, (max >= limit) ? 1 : (limit - max) / (max - min + 1) + 1);
+        }
+        
+        /**
+         * @return the number of copies that fit in the column's type
+         */
+        public long getCapacity()
+        {
+            return capacity;
+        }
+        
+        public String shift(String value, long copy)
+        {
+            int suffix;
+            String digits;
+            String shifted;
+            
+            if(copy == 0) return value;
+            if(!text) return Long.toString(Long.parseLong(value) + copy * span);
+            
+            suffix = getSuffix(value);
+            digits = value.substring(suffix);
+            shifted = Long.toString(Long.parseLong(digits) + copy * span);
+            
+            if(shifted.length() < digits.length()) shifted = "0".repeat(digits.length() - shifted.length()) + shifted;
+            
+            return value.substring(0, suffix) + shifted;
+        }
+    }
+    
+    /**
+     * A foreign key into a scaled table, shifted with the keys of the copy it
+     * points to.
+     */
+    private static class Reference
+    {
+        private final ScaledTable table;
+        private final int[] columns;
+        private final int[] referenced;
+        private final boolean random;
+
+        public Reference(ScaledTable table, int[] columns, int[] referenced, boolean random)
+        {
+            this.table = table;
+            this.columns = columns;
+            this.referenced = referenced;
+            this.random = random;
+        }
+        
+        public boolean contains(int column)
+        {
+            for(int index : columns)
+            {
+                if(index == column) return true;
+            }
+            
+            return false;
+        }
+        
+        public void shift(String[] row, String[] values, long copy)
+        {
+            KeyColumn key;
+            
+            for(var i=0; i<columns.length; i++)
+            {
+                key = table.keys[referenced[i]];
+                
+                if(key != null && row[columns[i]] != null) values[columns[i]] = key.shift(row[columns[i]], copy);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.transform.IdentityTransformer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Converts the string values of a raw record into the Java types declared by
+ * the table's DDL. A converter is chosen for each column up front so that no
+ * guessing happens per value:
+ * 
+ * <ul>
+ *   <li>int, smallint, tinyint and bit become Integer</li>
+ *   <li>bigint becomes Long</li>
+ *   <li>money, smallmoney, decimal and numeric become BigDecimal</li>
+ *   <li>float and real become Double, as the raw real values carry more
+ *       digits than a Float can hold</li>
+ *   <li>date becomes LocalDate and datetime becomes LocalDateTime</li>
+ *   <li>binary and varbinary are decoded from hex into byte[]</li>
+ * </ul>
+ * 
+ * Character columns are left as they are. Values that don't parse as their
+ * declared type are also left as strings, as a few of the SQL Server system 
+ * tables contain rows that don't match their columns.
+ * 
+ * @author jbanes
+ */
+public class SchemaTransformer implements IdentityTransformer
+{
+    private static final DateTimeFormatter DATETIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendLiteral(' ')
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .parseDefaulting(ChronoField.NANO_OF_SECOND, 0)
+            .toFormatter();
+    
+    private final String[] names;
+    private final Converter[] converters;
+    
+    private boolean streaming;
+
+    public SchemaTransformer(TableExtractor.CreateTable create)
+    {
+        var names = new JSONArray<String>();
+        var converters = new JSONArray<Converter>();
+        Converter converter;
+        
+        for(var column : create.columns)
+        {
+            converter = getConverter(column);
+            
+            if(converter == null) continue;
+            
+            names.add(column.name);
+            converters.add(converter);
+        }
+        
+        this.names = names.toArray(String[]::new);
+        this.converters = converters.toArray(Converter[]::new);
+    }
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * When enabled, large binary values are returned as a HexInputStream 
+     * rather than decoded into an array. See LoadDatabase.parseBinaryValue().
+     * 
+     * @param streaming true to stream large binary values
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+    
+    private static String getBaseType(TableExtractor.CreateColumn column)
+    {
+        return column.getBaseType();
+    }
+    
+    public static boolean isBinary(TableExtractor.CreateColumn column)
+    {
+        var type = getBaseType(column);
+        
+        return type.equals("varbinary") || type.equals("binary") || type.equals("image");
+    }
+    
+    public static boolean isInteger(TableExtractor.CreateColumn column)
+    {
+        var type = getBaseType(column);
+        
+        return type.equals("int") || type.equals("bigint") || type.equals("smallint") || type.equals("tinyint");
+    }
+    
+    public static String[] getBinaryColumns(TableExtractor.CreateTable create)
+    {
+        var names = new JSONArray<String>();
+        
+        for(var column : create.columns)
+        {
+            if(isBinary(column)) names.add(column.name);
+        }
+        
+        return names.toArray(String[]::new);
+    }
+    
+    /**
+     * @param create the table
+     * @return the columns left as strings, which are worth interning
+     */
+    public static String[] getCharacterColumns(TableExtractor.CreateTable create)
+    {
+        var names = new JSONArray<String>();
+        var transformer = new SchemaTransformer(create);
+        
+        for(var column : create.columns)
+        {
+            if(transformer.getConverter(column) == null) names.add(column.name);
+        }
+        
+        return names.toArray(String[]::new);
+    }
+    
+    private static Integer parseBit(CharSequence value)
+    {
+        if(value.length() == 1 && (value.charAt(0) == '0' || value.charAt(0) == '1')) return value.charAt(0) - '0';
+        if(value.toString().equalsIgnoreCase("true")) return 1;
+        if(value.toString().equalsIgnoreCase("false")) return 0;
+        
+        throw new ConvirganceException("Invalid bit value: " + value);
+    }
+    
+    private static LocalDateTime parseDateTime(CharSequence value)
+    {
+        if(value.length() == 10) return LocalDate.parse(value).atStartOfDay();
+        
+        return LocalDateTime.parse(value, DATETIME);
+    }
+    
+    private Converter getConverter(TableExtractor.CreateColumn column)
+    {
+        if(isBinary(column))
+        {
+            return value -> streaming ? LoadDatabase.parseBinaryValue(value) : HexDecoder.decode(value);
+        }
+        
+        switch(getBaseType(column))
+        {
+            case "int":
+            case "smallint":
+            case "tinyint":
+                return value -> Integer.parseInt(value, 0, value.length(), 10);
+                
+            case "bigint":
+                return value -> Long.parseLong(value, 0, value.length(), 10);
+                
+            case "bit":
+                return SchemaTransformer::parseBit;
+                
+            case "money":
+            case "smallmoney":
+            case "decimal":
+            case "numeric":
+                return value -> new BigDecimal(value.toString());
+                
+            case "float":
+            case "real":
+                return value -> Double.parseDouble(value.toString());
+                
+            case "date":
+                return value -> LocalDate.parse(value);
+                
+            case "datetime":
+            case "datetime2":
+            case "smalldatetime":
+                return SchemaTransformer::parseDateTime;
+                
+            default:
+                return null; // Strings stay as they are
+        }
+    }
+
+    @Override
+    public JSONObject transform(JSONObject record) throws ConvirganceException
+    {
+        Object value;
+        
+        for(var i=0; i<names.length; i++)
+        {
+            value = record.get(names[i]);
+            
+            if(!(value instanceof CharSequence)) continue;
+            
+            try
+            {
+                record.put(names[i], converters[i].convert((CharSequence)value));
+            }
+            catch(RuntimeException e)
+            {
+                // Leave values that don't match the declared type alone
+            }
+        }
+        
+        return record;
+    }
+    
+    private static interface Converter
+    {
+        public Object convert(CharSequence value);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import java.util.Locale;
+
+/**
+ * The portable SQL written by the sql command when no dialect is chosen, 
+ * and the base of the other dialects. Types are mapped to ones most 
+ * databases understand, at the cost of being wider than needed: every
+ * integer smaller than a bigint becomes an int, and unbounded text becomes
+ * varchar(4096).
+ * 
+ * @author jbanes
+ */
+public class StandardDialect implements SQLDialect
+{
+    public static final StandardDialect INSTANCE = new StandardDialect();
+    
+    @Override
+    public String getName()
+    {
+        return "standard";
+    }
+
+    @Override
+    public boolean isSupported(String url)
+    {
+        return true;
+    }
+    
+    protected static boolean isMax(TableExtractor.CreateColumn column)
+    {
+        return column.getSize().equals("(max)");
+    }
+
+    @Override
+    public String getType(TableExtractor.CreateColumn column)
+    {
+        switch(column.getBaseType())
+        {
+            case "bit":
+            case "tinyint":
+            case "smallint":
+                return "int";
+                
+            case "money":
+                return "decimal(19, 4)";
+                
+            case "smallmoney":
+                return "decimal(10, 4)";
+                
+            case "datetime":
+            case "datetime2":
+            case "smalldatetime":
+                return "timestamp";
+                
+            case "nchar":
+                return "char" + column.getSize();
+                
+            case "varchar":
+            case "nvarchar":
+                return isMax(column) ? "varchar(4096)" : "varchar" + column.getSize();
+                
+            case "varbinary":
+                return isMax(column) ? "blob" : "varbinary" + column.getSize();
+                
+            default:
+                return column.type.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public String getIdentifier(String name)
+    {
+        // Unknown is a reserved word in the SQL standard
+        if(name.equalsIgnoreCase("Unknown")) return "\"" + name + "\"";
+        
+        return name;
+    }
+}
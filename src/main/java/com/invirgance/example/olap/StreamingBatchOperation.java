@@ -0,0 +1,268 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.dbms.AtomicOperation;
+import com.invirgance.convirgance.dbms.Query;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Batch insert in the same vein as Convirgance's BatchOperation, except that
+ * stream values are bound with setBinaryStream() rather than setObject() so
+ * large binary columns never need to be held in memory as arrays. Java time
+ * values are bound as JDBC timestamps and dates, as not every driver accepts
+ * them through setObject().
+ * <br><br>
+ * By default all records are inserted in the caller's transaction. Setting
+ * commitEvery commits after that many records instead, notifying the
+ * listener as each chunk is committed. Time spent in those commits is 
+ * recorded in the commit stage if one is set.
+ * 
+ * @author jbanes
+ */
+public class StreamingBatchOperation implements AtomicOperation
+{
+    private Query query;
+    private Iterable<JSONObject> records;
+    private int batchSize = 10000;
+    private int commitEvery;
+    private ChunkListener listener;
+    private Metrics.Stage commitStage;
+    
+    private long count;
+    private long nanos;
+
+    public StreamingBatchOperation(Query query, Iterable<JSONObject> records)
+    {
+        this.query = query;
+        this.records = records;
+    }
+
+    public Query getQuery()
+    {
+        return query;
+    }
+
+    public Iterable<JSONObject> getRecords()
+    {
+        return records;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        if(batchSize < 1) throw new ConvirganceException("Batch size must be at least 1");
+        
+        this.batchSize = batchSize;
+    }
+
+    public int getCommitEvery()
+    {
+        return commitEvery;
+    }
+
+    /**
+     * Sets the number of records to insert between commits. Zero (the default)
+     * leaves the commit to the enclosing transaction.
+     * 
+     * @param commitEvery records per commit or zero for a single transaction
+     */
+    public void setCommitEvery(int commitEvery)
+    {
+        if(commitEvery < 0) throw new ConvirganceException("Commit interval cannot be negative");
+        
+        this.commitEvery = commitEvery;
+    }
+
+    public ChunkListener getListener()
+    {
+        return listener;
+    }
+
+    public void setListener(ChunkListener listener)
+    {
+        this.listener = listener;
+    }
+
+    public Metrics.Stage getCommitStage()
+    {
+        return commitStage;
+    }
+
+    public void setCommitStage(Metrics.Stage commitStage)
+    {
+        this.commitStage = commitStage;
+    }
+
+    /**
+     * @return number of records inserted by the last execution
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return nanoseconds spent in the last execution
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+    
+    private void commit(Connection connection, long rows) throws SQLException
+    {
+        var start = System.nanoTime();
+        
+        connection.commit();
+        
+        if(commitStage != null) commitStage.add(rows, System.nanoTime() - start);
+    }
+    
+    private String getSQL()
+    {
+        var sql = query.getSQL();
+        var buffer = new StringBuffer();
+        var index = 0;
+        
+        for(Query.Parameter parameter : query.getParameters())
+        {
+            buffer.append(sql, index, parameter.getStart());
+            buffer.append('?');
+            
+            index = parameter.getStart() + parameter.getLength();
+        }
+        
+        buffer.append(sql.substring(index));
+        
+        return buffer.toString();
+    }
+    
+    private void bind(PreparedStatement statement, int index, Object value) throws SQLException
+    {
+        if(value instanceof HexInputStream)
+        {
+            statement.setBinaryStream(index, (HexInputStream)value, ((HexInputStream)value).getLength());
+        }
+        else if(value instanceof InputStream)
+        {
+            statement.setBinaryStream(index, (InputStream)value);
+        }
+        else if(value instanceof LocalDateTime)
+        {
+            statement.setTimestamp(index, Timestamp.valueOf((LocalDateTime)value));
+        }
+        else if(value instanceof LocalDate)
+        {
+            statement.setDate(index, Date.valueOf((LocalDate)value));
+        }
+        else
+        {
+            statement.setObject(index, value);
+        }
+    }
+
+    @Override
+    public void execute(Connection connection) throws SQLException
+    {
+        var parameters = query.getParameters();
+        var started = System.nanoTime();
+        var start = started;
+        var committed = 0L;
+        var batched = 0;
+        
+        count = 0;
+        
+        try(var statement = connection.prepareStatement(getSQL()))
+        {
+            for(JSONObject record : records)
+            {
+                for(var i=0; i<parameters.length; i++)
+                {
+                    bind(statement, i+1, record.get(parameters[i].getName()));
+                }
+                
+                statement.addBatch();
+                batched++;
+                count++;
+                
+                if(batched == batchSize)
+                {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+                
+                if(commitEvery > 0 && count - committed == commitEvery)
+                {
+                    if(batched > 0) statement.executeBatch();
+                    
+                    commit(connection, count - committed);
+                    
+                    if(listener != null) listener.committed(count, (int)(count - committed), System.nanoTime() - start);
+                    
+                    start = System.nanoTime();
+                    committed = count;
+                    batched = 0;
+                }
+            }
+            
+            if(batched > 0) statement.executeBatch();
+            
+            if(commitEvery > 0 && count > committed)
+            {
+                commit(connection, count - committed);
+                
+                if(listener != null) listener.committed(count, (int)(count - committed), System.nanoTime() - start);
+            }
+        }
+        finally
+        {
+            nanos = System.nanoTime() - started;
+        }
+    }
+    
+    /**
+     * Notified each time a chunk of records is committed.
+     */
+    public static interface ChunkListener
+    {
+        /**
+         * @param total records committed so far, including this chunk
+         * @param count records in this chunk
+         * @param nanos time spent inserting and committing the chunk
+         */
+        public void committed(long total, int count, long nanos);
+    }
+}
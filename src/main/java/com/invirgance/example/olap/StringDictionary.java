@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive dictionary for the values of one column. Values are looked up 
+ * straight from the characters being parsed, so a value that has been seen 
+ * before is returned as the same String instance without allocating a new 
+ * one. Low cardinality columns such as currency codes, flags and names of
+ * scenarios or departments then share a handful of Strings across millions
+ * of rows.
+ * <br><br>
+ * The dictionary turns itself off once the column has produced more distinct
+ * values than the threshold, as high cardinality columns gain nothing from
+ * interning. Values are returned as new Strings from then on.
+ * <br><br>
+ * Instances are not thread safe. Each parsing thread uses its own.
+ * 
+ * @author jbanes
+ */
+public class StringDictionary
+{
+    private final int threshold;
+    private final LongAdder saved;
+    
+    private String[] values;
+    private int[] hashes;
+    private int[] sizes;
+    private int count;
+    
+    /**
+     * @param threshold maximum number of distinct values to intern
+     * @param saved counter that the bytes saved by each reused value are 
+     *        added to
+     */
+    public StringDictionary(int threshold, LongAdder saved)
+    {
+        var capacity = Integer.highestOneBit(Math.max(threshold, 8)) * 4;
+        
+        this.threshold = threshold;
+        this.saved = saved;
+        this.values = new String[capacity];
+        this.hashes = new int[capacity];
+        this.sizes = new int[capacity];
+    }
+
+    public int getThreshold()
+    {
+        return threshold;
+    }
+    
+    /**
+     * @return false once the column has more distinct values than the 
+     *         threshold
+     */
+    public boolean isEnabled()
+    {
+        return (values != null);
+    }
+
+    /**
+     * @return number of distinct values interned
+     */
+    public int getCount()
+    {
+        return count;
+    }
+    
+    /**
+     * Estimates the heap taken by a String with compact strings and 
+     * compressed pointers: a 24 byte object plus a byte array with a 16 byte
+     * header, padded to 8 bytes.
+     * 
+     * @param value the string
+     * @return estimated size in bytes
+     */
+    public static int getHeapSize(String value)
+    {
+        var bytes = value.length();
+        
+        for(var i=0; i<value.length(); i++)
+        {
+            if(value.charAt(i) > 0xFF)
+            {
+                bytes = value.length() * 2;
+                break;
+            }
+        }
+        
+        return 24 + ((16 + bytes + 7) & ~7);
+    }
+    
+    private boolean matches(String value, CharSequence chars, int start, int end)
+    {
+        if(value.length() != end - start) return false;
+        
+        for(var i=start; i<end; i++)
+        {
+            if(value.charAt(i - start) != chars.charAt(i)) return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the String for a range of characters, reusing the instance 
+     * returned for earlier occurrences of the same value while the 
+     * dictionary is enabled.
+     * 
+     * @param chars characters being parsed
+     * @param start index of the first character of the value
+     * @param end index after the last character of the value
+     * @return the value
+     */
+    public String intern(CharSequence chars, int start, int end)
+    {
+        var hash = 0;
+        var mask = 0;
+        int slot;
+        String value;
+        
+        if(values == null) return chars.subSequence(start, end).toString();
+        
+        // Same hash as String.hashCode()
+        for(var i=start; i<end; i++) hash = 31 * hash + chars.charAt(i);
+        
+        mask = values.length - 1;
+        slot = (hash ^ (hash >>> 16)) & mask;
+        
+        while(values[slot] != null)
+        {
+            if(hashes[slot] == hash && matches(values[slot], chars, start, end))
+            {
+                saved.add(sizes[slot]);
+                
+                return values[slot];
+            }
+            
+            slot = (slot + 1) & mask;
+        }
+        
+        value = chars.subSequence(start, end).toString();
+        
+        if(++count > threshold)
+        {
+            // Too many distinct values to be worth it
+            values = null;
+            hashes = null;
+            sizes = null;
+            
+            return value;
+        }
+        
+        values[slot] = value;
+        hashes[slot] = hash;
+        sizes[slot] = getHeapSize(value);
+        
+        return value;
+    }
+}
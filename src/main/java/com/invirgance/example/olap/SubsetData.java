@@ -0,0 +1,753 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a consistent slice of the data set, such as a single year or a
+ * single sales territory. A condition picks rows of a root table and the 
+ * subset is built in three steps:
+ * 
+ * <ol>
+ *   <li>The root and the dimensions that refer to it, such as DimGeography
+ *       under DimSalesTerritory, are scanned for the keys that match the
+ *       condition.</li>
+ *   <li>Each fact table is streamed once. A row is kept if the foreign key
+ *       that leads most directly to the root is one of those keys. Fact 
+ *       tables that refer to another fact table are filtered by the rows 
+ *       kept from it.</li>
+ *   <li>The dimensions are streamed once each, starting with the ones no
+ *       other dimension refers to. A row is kept if a kept row refers to it,
+ *       and its own foreign keys are recorded for the dimensions after it.
+ *       Dimensions with a hierarchy are scanned one extra time to keep the
+ *       parents of every kept row.</li>
+ * </ol>
+ * 
+ * Only the distinct keys are held in memory, in KeySets, so memory grows 
+ * with the number of keys in the subset rather than the number of rows.
+ * The root keeps the rows that match the condition as well as any rows the 
+ * kept facts refer to, such as the ship dates of orders placed in the year.
+ * 
+ * @author jbanes
+ */
+public class SubsetData implements Tool
+{
+    private static final Pattern CONDITION = Pattern.compile("\\s*(\\w+)\\s*(<=|>=|<>|!=|=|<|>)\\s*(.*?)\\s*");
+    
+    private String where;
+    private List<Condition> conditions = new ArrayList<>();
+    private OutputFormat[] formats = new OutputFormat[0];
+    private int compressThreads;
+    private File directory = new File("subset");
+    
+    private TableExtractor.CreateTable root;
+    private final Map<String,TableExtractor.CreateTable> tables = new LinkedHashMap<>();
+    private final Map<String,List<List<String>>> referenced = new HashMap<>();
+    private final Map<String,Integer> distances = new HashMap<>();
+    private final Map<String,TableExtractor.CreateConstraint> filterBy = new HashMap<>();
+    private final Set<String> filtering = new HashSet<>();
+    private final Map<String,KeySet> filters = new HashMap<>();
+    private final Map<String,KeySet> keys = new HashMap<>();
+
+    public String getWhere()
+    {
+        return where;
+    }
+
+    /**
+     * Conditions have the form <code>column op value</code>, where the 
+     * operator is one of =, !=, &lt;&gt;, &lt;, &lt;=, &gt; and &gt;=. 
+     * Several conditions can be joined with <code>and</code>. = and != take
+     * a comma separated list of values. Numbers are compared by value and 
+     * everything else as text, which also orders ISO dates correctly.
+     * 
+     * @param where conditions the rows of the root table must match
+     */
+    public void setWhere(String where)
+    {
+        var conditions = new ArrayList<Condition>();
+        
+        for(String expression : where.split("(?i)\\s+and\\s+"))
+        {
+            conditions.add(new Condition(expression));
+        }
+        
+        this.where = where;
+        this.conditions = conditions;
+    }
+
+    public OutputFormat[] getFormats()
+    {
+        return formats;
+    }
+
+    /**
+     * @param formats the converted formats to write, or none to write raw 
+     *        files
+     */
+    public void setFormats(OutputFormat... formats)
+    {
+        this.formats = formats;
+    }
+    
+    public boolean isRaw()
+    {
+        return (formats.length == 0);
+    }
+
+    public int getCompressThreads()
+    {
+        return compressThreads;
+    }
+
+    /**
+     * @param compressThreads number of threads gzip compressing each output 
+     *        file, or zero to write uncompressed files
+     */
+    public void setCompressThreads(int compressThreads)
+    {
+        this.compressThreads = compressThreads;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * The subset is written to an AdventureWorks directory under this 
+     * directory, laid out the same way as the original. The other tools can 
+     * be run against it from this directory.
+     * 
+     * @param directory the output directory
+     */
+    public void setDirectory(File directory)
+    {
+        this.directory = directory;
+    }
+    
+    private File getDataDirectory()
+    {
+        return new File(directory, "AdventureWorks");
+    }
+    
+    private boolean matches(JSONObject record)
+    {
+        for(Condition condition : conditions)
+        {
+            if(!condition.test(record)) return false;
+        }
+        
+        return true;
+    }
+    
+    private List<TableExtractor.CreateConstraint> getReferences(TableExtractor.CreateTable create)
+    {
+        var references = new ArrayList<TableExtractor.CreateConstraint>();
+        
+        for(var constraint : create.constraints)
+        {
+            if(constraint.isForeignKey() && tables.containsKey(constraint.getReferencedTableName())) references.add(constraint);
+        }
+        
+        return references;
+    }
+    
+    private boolean isSelfReference(TableExtractor.CreateTable create, TableExtractor.CreateConstraint constraint)
+    {
+        return constraint.getReferencedTableName().equals(create.getTableName());
+    }
+    
+    private boolean isFact(String table)
+    {
+        return LoadDatabase.isFact(tables.get(table));
+    }
+    
+    private boolean isInteger(String table, List<String> columns)
+    {
+        if(columns.size() != 1) return false;
+        
+        for(var column : tables.get(table).columns)
+        {
+            if(column.name.equals(columns.get(0))) return SchemaTransformer.isInteger(column);
+        }
+        
+        return false;
+    }
+    
+    private KeySet getKeySet(Map<String,KeySet> sets, String table, List<String> columns)
+    {
+        return sets.computeIfAbsent(table + columns, key -> new KeySet(isInteger(table, columns)));
+    }
+    
+    /**
+     * @param table the table a foreign key refers to
+     * @param columns the referenced columns
+     * @return the keys a foreign key must match to be in the subset
+     */
+    private KeySet getFilter(String table, List<String> columns)
+    {
+        // Facts are filtered by the rows kept from them, everything else by the condition
+        return getKeySet(isFact(table) ? keys : filters, table, columns);
+    }
+    
+    private List<List<String>> getReferencedKeys(String table)
+    {
+        return referenced.getOrDefault(table, Collections.emptyList());
+    }
+    
+    private void plan(TableExtractor.CreateTable root)
+    {
+        List<TableExtractor.CreateTable> found;
+        String target;
+        
+        this.root = root;
+        
+        tables.clear();
+        referenced.clear();
+        distances.clear();
+        filterBy.clear();
+        filtering.clear();
+        filters.clear();
+        keys.clear();
+        
+        for(var create : TableExtractor.getCreateTables())
+        {
+            // Some tables do not have data
+            if(TableScheduler.getRawFile(create).exists()) tables.put(create.getTableName(), create);
+        }
+        
+        for(var create : tables.values())
+        {
+            for(var constraint : getReferences(create))
+            {
+                var columns = referenced.computeIfAbsent(constraint.getReferencedTableName(), key -> new ArrayList<>());
+                
+                if(!columns.contains(constraint.referencedColumns)) columns.add(constraint.referencedColumns);
+            }
+        }
+        
+        distances.put(root.getTableName(), 0);
+        
+        // Each table is filtered through the first foreign key on a shortest path to the root
+        for(var level=1; ; level++)
+        {
+            found = new ArrayList<>();
+            
+            for(var create : tables.values())
+            {
+                if(distances.containsKey(create.getTableName())) continue;
+                
+                for(var constraint : getReferences(create))
+                {
+                    target = constraint.getReferencedTableName();
+                    
+                    if(isSelfReference(create, constraint) || distances.getOrDefault(target, -1) != level - 1) continue;
+                    
+                    // Dimensions are only filtered through other dimensions
+                    if(!LoadDatabase.isFact(create) && isFact(target)) continue;
+                    
+                    filterBy.put(create.getTableName(), constraint);
+                    found.add(create);
+                    break;
+                }
+            }
+            
+            if(found.isEmpty()) break;
+            
+            for(var create : found) distances.put(create.getTableName(), level);
+        }
+        
+        // Only the tables on the way from a fact to the root need their keys filtered
+        for(var create : tables.values())
+        {
+            if(!LoadDatabase.isFact(create)) continue;
+            
+            for(var constraint = filterBy.get(create.getTableName()); constraint != null; constraint = filterBy.get(constraint.getReferencedTableName()))
+            {
+                filtering.add(constraint.getReferencedTableName());
+            }
+        }
+    }
+    
+    private List<TableExtractor.CreateTable> getFiltered(boolean facts)
+    {
+        var filtered = new ArrayList<TableExtractor.CreateTable>();
+        
+        for(var create : tables.values())
+        {
+            if(!distances.containsKey(create.getTableName()) || LoadDatabase.isFact(create) != facts) continue;
+            if(facts || filtering.contains(create.getTableName())) filtered.add(create);
+        }
+        
+        filtered.sort(Comparator.comparingInt(create -> distances.get(create.getTableName())));
+        
+        return filtered;
+    }
+    
+    private void visit(TableExtractor.CreateTable create, List<TableExtractor.CreateTable> ordered, Set<String> visiting)
+    {
+        if(ordered.contains(create)) return;
+        if(!visiting.add(create.getTableName())) throw new ConvirganceException("Dimension " + create.getTableName() + " refers back to itself through other dimensions");
+        
+        for(var constraint : getReferences(create))
+        {
+            if(isSelfReference(create, constraint) || isFact(constraint.getReferencedTableName())) continue;
+            
+            visit(tables.get(constraint.getReferencedTableName()), ordered, visiting);
+        }
+        
+        ordered.add(create);
+    }
+    
+    /**
+     * @return the dimensions, ordered so that every dimension comes before 
+     *         the dimensions it refers to
+     */
+    private List<TableExtractor.CreateTable> getDimensions()
+    {
+        var ordered = new ArrayList<TableExtractor.CreateTable>();
+        var visiting = new HashSet<String>();
+        
+        for(var create : tables.values())
+        {
+            if(!LoadDatabase.isFact(create)) visit(create, ordered, visiting);
+        }
+        
+        Collections.reverse(ordered);
+        
+        return ordered;
+    }
+    
+    private void scan(TableExtractor.CreateTable create, Metrics.Stage stage, Consumer<JSONObject> consumer)
+    {
+        var input = new MappedPipeInput(create.getColumnNames());
+        
+        stage.addBytesRead(TableScheduler.getRawFile(create).length());
+        
+        try(var iterator = input.read(TableScheduler.getRawSource(create)).iterator())
+        {
+            for(JSONObject record : stage.time((Iterable<JSONObject>)() -> iterator)) consumer.accept(record);
+        }
+        catch(RuntimeException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    private void write(TableExtractor.CreateTable create, Predicate<JSONObject> selected, Consumer<JSONObject> kept)
+    {
+        var name = create.getTableName();
+        var metrics = Metrics.getCurrent();
+        var read = metrics.getStage(name, "read");
+        var write = metrics.getStage(name, "write");
+        var outputs = new MultiOutputCursor();
+        
+        // Raw files are written from the strings, the other formats need the values typed
+        var transformer = isRaw() ? null : metrics.getStage(name, "transform").time(new SchemaTransformer(create));
+        
+        System.out.print("Writing " + name + "... ");
+        
+        try(var cursor = write.time(outputs))
+        {
+            if(isRaw()) outputs.add(GenerateData.writeRaw(getDataDirectory(), create, compressThreads));
+            
+            for(OutputFormat format : formats)
+            {
+                outputs.add(format.write(getDataDirectory(), name, compressThreads));
+            }
+            
+            scan(create, read, record -> {
+                
+                if(!selected.test(record)) return;
+                
+                // Keys are recorded from the raw strings before the record is typed
+                kept.accept(record);
+                cursor.write(isRaw() ? record : transformer.transform(record));
+            });
+        }
+        catch(RuntimeException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        if(isRaw()) write.addBytesWritten(GenerateData.getRawFile(getDataDirectory(), name, compressThreads > 0).length());
+        
+        for(OutputFormat format : formats)
+        {
+            write.addBytesWritten(format.getFile(getDataDirectory(), name, compressThreads > 0 && format.isCompressible()).length());
+        }
+        
+        System.out.println(write.getRows() + " rows");
+    }
+    
+    /**
+     * Records the keys of the root's rows that match the condition, or the 
+     * keys of a dimension's rows that refer to them.
+     */
+    private void filter(TableExtractor.CreateTable create)
+    {
+        var name = create.getTableName();
+        var constraint = filterBy.get(name);
+        var filter = (constraint == null) ? null : getFilter(constraint.getReferencedTableName(), constraint.referencedColumns);
+        
+        System.out.print("Filtering " + name + "... ");
+        
+        scan(create, Metrics.getCurrent().getStage(name, "scan"), record -> {
+            
+            if(constraint == null ? !matches(record) : !filter.contains(KeySet.getKey(record, constraint.columns))) return;
+            
+            for(var columns : getReferencedKeys(name))
+            {
+                getKeySet(filters, name, columns).add(KeySet.getKey(record, columns));
+            }
+        });
+        
+        System.out.println("Done");
+    }
+    
+    private boolean isSelectedFact(TableExtractor.CreateTable create, JSONObject record)
+    {
+        var filter = filterBy.get(create.getTableName());
+        String key;
+        
+        if(create == root) return matches(record);
+        if(!getFilter(filter.getReferencedTableName(), filter.referencedColumns).contains(KeySet.getKey(record, filter.columns))) return false;
+        
+        // A row referring to a row of another fact that isn't in the subset would break its foreign key
+        for(var constraint : getReferences(create))
+        {
+            if(constraint == filter || isSelfReference(create, constraint) || !isFact(constraint.getReferencedTableName())) continue;
+            
+            key = KeySet.getKey(record, constraint.columns);
+            
+            if(key != null && !getKeySet(keys, constraint.getReferencedTableName(), constraint.referencedColumns).contains(key)) return false;
+        }
+        
+        return true;
+    }
+    
+    private boolean isSelectedDimension(TableExtractor.CreateTable create, JSONObject record)
+    {
+        var name = create.getTableName();
+        
+        if(create == root && matches(record)) return true;
+        
+        for(var columns : getReferencedKeys(name))
+        {
+            if(getKeySet(keys, name, columns).contains(KeySet.getKey(record, columns))) return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Records the keys of a kept row, and the keys of the dimension rows it 
+     * refers to.
+     */
+    private void keep(TableExtractor.CreateTable create, JSONObject record)
+    {
+        var name = create.getTableName();
+        
+        if(LoadDatabase.isFact(create))
+        {
+            for(var columns : getReferencedKeys(name))
+            {
+                getKeySet(keys, name, columns).add(KeySet.getKey(record, columns));
+            }
+        }
+        
+        for(var constraint : getReferences(create))
+        {
+            if(isSelfReference(create, constraint) || isFact(constraint.getReferencedTableName())) continue;
+            
+            getKeySet(keys, constraint.getReferencedTableName(), constraint.referencedColumns).add(KeySet.getKey(record, constraint.columns));
+        }
+    }
+    
+    /**
+     * Adds the parents, grandparents and so on of every selected row of a 
+     * dimension with a hierarchy to its keys.
+     */
+    private void closeHierarchy(TableExtractor.CreateTable create, TableExtractor.CreateConstraint constraint)
+    {
+        var name = create.getTableName();
+        var set = getKeySet(keys, name, constraint.referencedColumns);
+        var parents = new HashMap<String,String>();
+        var selected = new ArrayList<String>();
+        
+        String parent;
+        
+        scan(create, Metrics.getCurrent().getStage(name, "scan"), record -> {
+            
+            var key = KeySet.getKey(record, constraint.referencedColumns);
+            
+            if(key == null) return;
+            
+            parents.put(key, KeySet.getKey(record, constraint.columns));
+            
+            if(isSelectedDimension(create, record)) selected.add(key);
+        });
+        
+        // Walking stops at keys that were already added, as their parents are added too
+        for(String key : selected)
+        {
+            parent = parents.get(key);
+            
+            while(parent != null && set.add(parent)) parent = parents.get(parent);
+        }
+    }
+    
+    private void subsetDimension(TableExtractor.CreateTable create)
+    {
+        var empty = true;
+        
+        for(var columns : getReferencedKeys(create.getTableName()))
+        {
+            if(!getKeySet(keys, create.getTableName(), columns).isEmpty()) empty = false;
+        }
+        
+        // Nothing in the subset refers to this dimension
+        if(create != root && empty) return;
+        
+        for(var constraint : getReferences(create))
+        {
+            if(isSelfReference(create, constraint)) closeHierarchy(create, constraint);
+        }
+        
+        write(create, record -> isSelectedDimension(create, record), record -> keep(create, record));
+    }
+    
+    public void subset(TableExtractor.CreateTable root)
+    {
+        if(!TableScheduler.getRawFile(root).exists()) throw new ConvirganceException("Table " + root.getTableName() + " has no raw data to subset!");
+        if(conditions.isEmpty()) throw new ConvirganceException("No condition to subset " + root.getTableName() + " by");
+        
+        for(Condition condition : conditions) condition.resolve(root);
+        
+        plan(root);
+        
+        for(var create : getFiltered(false)) filter(create);
+        
+        for(var create : getFiltered(true))
+        {
+            write(create, record -> isSelectedFact(create, record), record -> keep(create, record));
+        }
+        
+        for(var create : getDimensions()) subsetDimension(create);
+    }
+
+    @Override
+    public String getName()
+    {
+        return "subset";
+    }
+
+    @Override
+    public void execute(String[] args)
+    {
+        var options = new Options(args, "compress");
+        var name = options.getArgument(1);
+        var names = options.getList("formats", "raw");
+        
+        TableExtractor.CreateTable table;
+        
+        if(name == null) throw new ConvirganceException("The root table must be specified");
+        if(!options.has("where")) throw new ConvirganceException("A --where condition must be specified");
+        
+        table = TableExtractor.getCreateTable(name);
+        
+        if(table == null) throw new ConvirganceException("Table " + name + " not found!");
+        
+        setWhere(options.get("where", null));
+        setFormats((names.length == 1 && names[0].trim().equalsIgnoreCase("raw")) ? new OutputFormat[0] : OutputFormat.getFormats(names));
+        setCompressThreads(options.has("compress") ? options.getInt("compress-threads", Runtime.getRuntime().availableProcessors()) : 0);
+        setDirectory(new File(options.get("output", "subset/" + table.getTableName())));
+        
+        for(String format : names)
+        {
+            if(names.length > 1 && format.trim().equalsIgnoreCase("raw")) throw new ConvirganceException("The raw format can't be combined with other formats");
+        }
+        
+        if(options.has("compress") && compressThreads < 1) throw new ConvirganceException("Compress thread count must be at least 1");
+        
+        GenerateData.copySchema(getDataDirectory());
+        
+        System.out.println("Subsetting " + table.getTableName() + " where " + where + " into " + getDataDirectory());
+        
+        subset(table);
+    }
+
+    @Override
+    public String getHelp()
+    {
+        return """
+                subset <table> --where <condition> [--output dir]
+                       [--formats raw|json,csv,jbin,columnar]
+                       [--compress] [--compress-threads n]
+
+                    Extracts the rows of the fact tables that refer to the rows
+                    of the root table matching the condition, along with every
+                    dimension row they refer to. Fact tables that don't lead
+                    to the root are left out. Each fact table is read once and
+                    only the keys in the subset are held in memory.
+
+                    The subset is written to <dir>/AdventureWorks in the same
+                    layout as the original, so the other commands can be run
+                    on it from <dir>.
+
+                    table - The root table, such as DimDate or DimSalesTerritory
+                    --where - Conditions on the columns of the root table such
+                              as "CalendarYear=2012". The operators are =, !=,
+                              <, <=, > and >=. = and != take a comma separated
+                              list of values. Join conditions with "and"
+                    --output - (Optional) Output directory. Defaults to
+                               subset/<table>
+                    --formats - (Optional) raw to write UTF-16 pipe-delimited
+                                raw files, or a comma separated list of json,
+                                csv, jbin and columnar. Defaults to raw
+                    --compress - (Optional) Gzip the output files, except for
+                                 columnar files. Files are written with a .gz
+                                 extension
+                    --compress-threads - (Optional) Number of threads
+                                         compressing each file. Defaults to
+                                         the number of processors""";
+    }
+    
+    /**
+     * A single comparison of a column of the root table with a value or list
+     * of values.
+     */
+    private static class Condition
+    {
+        private String column;
+        private final String operator;
+        private final String[] values;
+
+        public Condition(String expression)
+        {
+            var matcher = CONDITION.matcher(expression);
+            
+            if(!matcher.matches()) throw new ConvirganceException("Invalid condition: " + expression);
+            
+            this.column = matcher.group(1);
+            this.operator = matcher.group(2).equals("<>") ? "!=" : matcher.group(2);
+            this.values = matcher.group(3).split("\\s*,\\s*");
+            
+            for(var i=0; i<values.length; i++)
+            {
+                if(values[i].length() > 1 && values[i].startsWith("'") && values[i].endsWith("'")) values[i] = values[i].substring(1, values[i].length()-1);
+            }
+            
+            if(values.length > 1 && !operator.equals("=") && !operator.equals("!=")) 
+            {
+                throw new ConvirganceException("Only = and != take a list of values: " + expression);
+            }
+        }
+        
+        /**
+         * Matches the column name to the case used by the table.
+         */
+        public void resolve(TableExtractor.CreateTable create)
+        {
+            for(var candidate : create.columns)
+            {
+                if(!candidate.name.equalsIgnoreCase(column)) continue;
+                
+                column = candidate.name;
+                
+                return;
+            }
+            
+            throw new ConvirganceException("Column " + column + " not found in " + create.getTableName());
+        }
+        
+        private static boolean isNumber(String value)
+        {
+            return value.matches("-?\\d+(\\.\\d+)?");
+        }
+        
+        private static int compare(String value, String other)
+        {
+            if(isNumber(value) && isNumber(other)) return new BigDecimal(value).compareTo(new BigDecimal(other));
+            
+            return value.compareTo(other);
+        }
+        
+        public boolean test(JSONObject record)
+        {
+            var value = record.getString(column);
+            
+            if(value == null) return false;
+            
+            value = value.trim();
+            
+            switch(operator)
+            {
+                case "=":
+                case "!=":
+                    for(String other : values)
+                    {
+                        if(compare(value, other) == 0) return operator.equals("=");
+                    }
+                    
+                    return operator.equals("!=");
+                    
+                case "<":
+                    return compare(value, values[0]) < 0;
+                    
+                case "<=":
+                    return compare(value, values[0]) <= 0;
+                    
+                case ">":
+                    return compare(value, values[0]) > 0;
+                    
+                default:
+                    return compare(value, values[0]) >= 0;
+            }
+        }
+    }
+}
@@ -21,191 +21,914 @@ SOFTWARE.
  */
 package com.invirgance.example.olap;
 
+import com.invirgance.convirgance.ConvirganceException;
 import com.invirgance.convirgance.json.JSONArray;
 import com.invirgance.convirgance.json.JSONObject;
 import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.target.FileTarget;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 /**
+ * Parses the table definitions out of the SQL Server script. The jar embeds a
+ * catalog of the tables parsed at build time, along with the normalized create
+ * and insert SQL of each table, which is used as long as the script on disk 
+ * is the one the jar was built from. A changed script is parsed and the 
+ * result cached under AdventureWorks/cache. Set 
+ * <code>-Dadventureworks.cache=false</code> to always parse the script.
  *
  * @author jbanes
  */
 public class TableExtractor
 {
-    private static JSONArray<String> parseSQLLine(String line)
+    private static final File DDL = new File("AdventureWorks/raw/instawdbdw.sql");
+    private static final File CACHE_DIRECTORY = new File("AdventureWorks/cache");
+    private static final String EMBEDDED_CATALOG = "catalog.bin";
+    private static final int CACHE_VERSION = 4;
+    
+    private static volatile Catalog catalog;
+    private static boolean cacheEnabled = Boolean.parseBoolean(System.getProperty("adventureworks.cache", "true"));
+    
+    private static String parseName(SQLLexer lexer)
+    {
+        var name = lexer.next();
+        
+        while(lexer.isNext("."))
+        {
+            lexer.next();
+            
+            name += "." + lexer.next();
+        }
+        
+        return name;
+    }
+    
+    private static String parseGroup(SQLLexer lexer)
+    {
+        var buffer = new StringBuffer();
+        var depth = 0;
+        
+        do
+        {
+            if(lexer.next() == null) throw new ConvirganceException("Unterminated parenthesis at line " + lexer.getLine());
+            if(lexer.is("(")) depth++;
+            if(lexer.is(")")) depth--;
+            
+            buffer.append(lexer.getToken());
+        }
+        while(depth > 0);
+        
+        return buffer.toString();
+    }
+    
+    private static List<String> parseColumnList(SQLLexer lexer)
+    {
+        var columns = new JSONArray<String>();
+        
+        lexer.expect("(");
+        
+        while(lexer.next() != null && !lexer.is(")"))
+        {
+            if(lexer.is(",") || lexer.is("ASC") || lexer.is("DESC")) continue;
+            
+            columns.add(lexer.getToken());
+        }
+        
+        return columns;
+    }
+    
+    private static CreateColumn parseColumn(SQLLexer lexer)
     {
-        var token = new StringBuffer();
-        var list = new JSONArray<String>();
+        var name = lexer.getToken();
+        var type = lexer.next();
+        var nullable = new StringBuffer();
+        String identity = null;
         
-        var left = '.';
-        var quote = false;
+        if(lexer.isNext("(")) type += parseGroup(lexer);
         
-        char c;
+        if(lexer.isNext("IDENTITY"))
+        {
+            identity = lexer.next();
+            
+            if(lexer.isNext("(")) identity += parseGroup(lexer);
+        }
         
-        for(var i=0; i<line.length(); i++)
+        while(lexer.peek() != null && !lexer.isNext(",") && !lexer.isNext(")"))
         {
-            c = line.charAt(i);
+            if(nullable.length() > 0) nullable.append(' ');
             
-            if(quote)
+            if(lexer.isNext("(")) nullable.append(parseGroup(lexer));
+            else nullable.append(lexer.next());
+        }
+        
+        return new CreateColumn(name, type, identity, nullable.toString());
+    }
+    
+    private static void skipConstraintOptions(SQLLexer lexer)
+    {
+        while(true)
+        {
+            if(lexer.isNext("WITH"))
+            {
+                lexer.next();
+                
+                if(lexer.isNext("(")) parseGroup(lexer);
+                else lexer.next(); // WITH CHECK / NOCHECK
+            }
+            else if(lexer.isNext("ON"))
             {
-                if((left == '[' && c == ']') || (left == '"' && c == '"'))
+                lexer.next();
+                
+                // ON DELETE/UPDATE actions or a filegroup
+                if(lexer.isNext("DELETE") || lexer.isNext("UPDATE"))
                 {
-                    if(token.length() > 0) list.add(token.toString());
-
-                    token.setLength(0);
+                    lexer.next();
+                    
+                    if(lexer.isNext("NO") || lexer.isNext("SET")) lexer.next();
                     
-                    quote = false;
+                    lexer.next();
                 }
                 else
                 {
-                    token.append(c);
+                    lexer.next();
                 }
             }
-            else if(Character.isWhitespace(c))
+            else if(lexer.isNext("NOT"))
             {
-                if(token.length() > 0) list.add(token.toString());
+                lexer.next(); // NOT FOR REPLICATION
+                lexer.next();
+                lexer.next();
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+    
+    private static CreateConstraint parseConstraint(SQLLexer lexer)
+    {
+        String name = null;
+        String type;
+        List<String> columns;
+        String references = null;
+        List<String> referenced = null;
+        
+        if(lexer.isNext("CONSTRAINT"))
+        {
+            lexer.next();
+            
+            name = lexer.next();
+        }
+        
+        lexer.next();
+        
+        if(lexer.is("PRIMARY") || lexer.is("FOREIGN"))
+        {
+            type = lexer.getToken().toUpperCase(Locale.ROOT) + " KEY";
+            
+            lexer.expect("KEY");
+        }
+        else if(lexer.is("UNIQUE"))
+        {
+            type = "UNIQUE";
+        }
+        else
+        {
+            return null; // CHECK and DEFAULT constraints aren't needed outside SQL Server
+        }
+        
+        if(lexer.isNext("CLUSTERED") || lexer.isNext("NONCLUSTERED")) lexer.next();
+        
+        columns = parseColumnList(lexer);
+        
+        if(type.equals("FOREIGN KEY"))
+        {
+            lexer.expect("REFERENCES");
+            
+            references = parseName(lexer);
+            referenced = lexer.isNext("(") ? parseColumnList(lexer) : columns;
+        }
+        
+        skipConstraintOptions(lexer);
+        
+        return new CreateConstraint(name, type, columns, references, referenced);
+    }
+    
+    private static void skipClause(SQLLexer lexer)
+    {
+        while(lexer.peek() != null && !lexer.isNext(",") && !lexer.isNext(")") && !lexer.isNext(";"))
+        {
+            if(lexer.isNext("(")) parseGroup(lexer);
+            else lexer.next();
+        }
+    }
+    
+    private static void parseCreateTable(SQLLexer lexer, ParsedScript script)
+    {
+        var table = parseName(lexer);
+        var columns = new JSONArray<CreateColumn>();
+        var constraints = script.getConstraints(table);
+        
+        CreateConstraint constraint;
+        
+        lexer.expect("(");
+        
+        while(lexer.peek() != null && !lexer.isNext(")"))
+        {
+            if(lexer.isNext("CONSTRAINT") || lexer.isNext("PRIMARY") || lexer.isNext("UNIQUE") || lexer.isNext("FOREIGN") || lexer.isNext("CHECK"))
+            {
+                constraint = parseConstraint(lexer);
+                
+                if(constraint != null) constraints.add(constraint);
+                else skipClause(lexer);
+            }
+            else
+            {
+                lexer.next();
+                
+                columns.add(parseColumn(lexer));
+            }
+            
+            if(lexer.isNext(",")) lexer.next();
+        }
+        
+        lexer.expect(")");
+        
+        script.tables.add(table);
+        script.columns.put(table, columns);
+    }
+    
+    private static void parseAlterTable(SQLLexer lexer, ParsedScript script)
+    {
+        var table = parseName(lexer);
+        var constraints = script.getConstraints(table);
+        
+        CreateConstraint constraint;
+        
+        if(lexer.isNext("WITH"))
+        {
+            lexer.next();
+            lexer.next(); // CHECK or NOCHECK
+        }
+        
+        // Only constraint additions matter
+        if(!lexer.isNext("ADD")) return;
+        
+        lexer.next();
+        
+        do
+        {
+            constraint = parseConstraint(lexer);
+            
+            if(constraint != null) constraints.add(constraint);
+            else skipClause(lexer);
+        }
+        while(lexer.isNext(",") && lexer.next() != null);
+    }
+    
+    private static void parseCreateIndex(SQLLexer lexer, ParsedScript script, boolean unique)
+    {
+        var name = lexer.next();
+        String table;
+        
+        lexer.expect("ON");
+        
+        table = parseName(lexer);
+        
+        script.getIndexes(table).add(new CreateIndex(name, getTableName(table), unique, parseColumnList(lexer)));
+        
+        skipConstraintOptions(lexer);
+    }
+    
+    private static void parseBulkInsert(SQLLexer lexer, ParsedScript script)
+    {
+        var table = parseName(lexer);
+        var options = new LinkedHashMap<String,String>();
+        
+        String option;
+        
+        lexer.expect("FROM");
+        
+        var file = lexer.next();
+        
+        if(lexer.isNext("WITH"))
+        {
+            lexer.next();
+            lexer.expect("(");
+            
+            while(lexer.next() != null && !lexer.is(")"))
+            {
+                if(lexer.is(",")) continue;
                 
-                token.setLength(0);
+                option = lexer.getToken().toUpperCase(Locale.ROOT);
+                
+                if(lexer.isNext("="))
+                {
+                    lexer.next();
+                    
+                    options.put(option, lexer.next());
+                }
+                else
+                {
+                    options.put(option, "true");
+                }
             }
-            else if(c == '[' || c == '"')
+        }
+        
+        script.bulkInserts.put(getTableName(table).toLowerCase(Locale.ROOT), new BulkInsert(file, options));
+    }
+    
+    /**
+     * Parses the CREATE TABLE, ALTER TABLE ... ADD CONSTRAINT, CREATE INDEX and
+     * BULK INSERT statements out of a SQL Server script. Everything else in the script
+     * is skipped over.
+     * 
+     * @param sql the full text of the script
+     * @return the tables in the order they were created
+     */
+    public static JSONArray<CreateTable> parse(CharSequence sql)
+    {
+        var lexer = new SQLLexer(sql);
+        var script = new ParsedScript();
+        var tables = new JSONArray<CreateTable>();
+        
+        String key;
+        
+        while(lexer.next() != null)
+        {
+            if(lexer.is("CREATE") && lexer.isNext("TABLE"))
             {
-                left = c;
-                quote = true;
+                lexer.next();
                 
-                if(token.length() > 0) list.add(token.toString());
+                parseCreateTable(lexer, script);
+            }
+            else if(lexer.is("CREATE") && (lexer.isNext("INDEX") || lexer.isNext("UNIQUE") || lexer.isNext("CLUSTERED") || lexer.isNext("NONCLUSTERED")))
+            {
+                var unique = lexer.isNext("UNIQUE") && lexer.next() != null;
+                
+                if(lexer.isNext("CLUSTERED") || lexer.isNext("NONCLUSTERED")) lexer.next();
                 
-                token.setLength(0);
+                if(lexer.isNext("INDEX") && lexer.next() != null) parseCreateIndex(lexer, script, unique);
             }
-            else if(c == ',')
+            else if(lexer.is("ALTER") && lexer.isNext("TABLE"))
+            {
+                lexer.next();
+                
+                parseAlterTable(lexer, script);
+            }
+            else if(lexer.is("BULK") && lexer.isNext("INSERT"))
+            {
+                lexer.next();
+                
+                parseBulkInsert(lexer, script);
+            }
+        }
+        
+        for(String table : script.tables)
+        {
+            key = getTableName(table).toLowerCase(Locale.ROOT);
+            
+            tables.add(new CreateTable(table, script.columns.get(table), script.constraints.getOrDefault(key, List.of()), script.indexes.getOrDefault(key, List.of()), script.bulkInserts.get(key)));
+        }
+        
+        return tables;
+    }
+    
+    private static String getTableName(String table)
+    {
+        return table.substring(table.lastIndexOf('.') + 1);
+    }
+    
+    public static boolean isCacheEnabled()
+    {
+        return cacheEnabled;
+    }
+    
+    public static void setCacheEnabled(boolean enabled)
+    {
+        cacheEnabled = enabled;
+    }
+    
+    static String hash(byte[] data)
+    {
+        var hex = new StringBuffer();
+        
+        try
+        {
+            for(byte b : MessageDigest.getInstance("SHA-256").digest(data))
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        return hex.toString();
+    }
+    
+    private static JSONArray<CreateTable> readCache(File file)
+    {
+        var tables = new JSONArray<CreateTable>();
+        
+        if(!file.exists()) return null;
+        
+        try
+        {
+            for(Object table : new JSONArray<>(new FileSource(file).readString("UTF-8")))
+            {
+                tables.add(new CreateTable((JSONObject)table));
+            }
+        }
+        catch(RuntimeException e)
+        {
+            return null; // Treat an unreadable cache as missing and parse again
+        }
+        
+        return tables;
+    }
+    
+    private static void writeCache(File file, List<CreateTable> tables)
+    {
+        var array = new JSONArray<JSONObject>();
+        var temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        
+        for(CreateTable table : tables) array.add(table.toJSONObject());
+        
+        try
+        {
+            // Write and rename so concurrent invocations never see a partial file
+            new FileTarget(temp).writeString(array.toString(), "UTF-8");
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            temp.delete(); // The cache is only an optimization
+        }
+    }
+    
+    private static long checksum(byte[] data)
+    {
+        var crc = new CRC32();
+        
+        crc.update(data);
+        
+        return crc.getValue();
+    }
+    
+    /**
+     * Parses a script and writes the tables as a catalog to be embedded in 
+     * the jar. See CatalogBuilder.
+     * 
+     * @param ddl the SQL Server script
+     * @param file the catalog file to write
+     */
+    public static void writeCatalog(File ddl, File file)
+    {
+        byte[] data;
+        
+        try
+        {
+            data = Files.readAllBytes(ddl.toPath());
+            
+            if(file.getParentFile() != null) file.getParentFile().mkdirs();
+            
+            try(var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+            {
+                out.writeInt(CACHE_VERSION);
+                out.writeLong(data.length);
+                out.writeLong(checksum(data));
+                
+                new Catalog(parse(new String(data, StandardCharsets.UTF_16))).write(out);
+            }
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException("Unable to write " + file, e);
+        }
+    }
+    
+    private static Catalog readEmbeddedCatalog(byte[] data)
+    {
+        try(var in = TableExtractor.class.getResourceAsStream(EMBEDDED_CATALOG))
+        {
+            if(in == null) return null; // Not built by Maven
+            
+            var input = new DataInputStream(new BufferedInputStream(in));
+            
+            if(input.readInt() != CACHE_VERSION) return null;
+            
+            // A script that doesn't match is parsed instead. Without a script there is nothing to compare.
+            if(data != null && (input.readLong() != data.length || input.readLong() != checksum(data))) return null;
+            if(data == null) input.skipNBytes(16);
+            
+            return Catalog.read(input);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+    
+    private static Catalog loadCatalog()
+    {
+        Catalog embedded;
+        byte[] data;
+        String hash;
+        File cache;
+        JSONArray<CreateTable> tables = null;
+        
+        // Running somewhere without the raw files, such as when only generating SQL
+        if(cacheEnabled && !DDL.exists() && (embedded = readEmbeddedCatalog(null)) != null) return embedded;
+        
+        try
+        {
+            data = Files.readAllBytes(DDL.toPath());
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException("Unable to read " + DDL, e);
+        }
+        
+        if(cacheEnabled && (embedded = readEmbeddedCatalog(data)) != null) return embedded;
+        
+        hash = hash(data);
+        cache = new File(CACHE_DIRECTORY, "schema-" + CACHE_VERSION + "-" + hash + ".json");
+        
+        if(cacheEnabled) tables = readCache(cache);
+        
+        if(tables == null)
+        {
+            tables = parse(new String(data, StandardCharsets.UTF_16)); // UTF-16 with BOM!
+            
+            if(cacheEnabled) writeCache(cache, tables);
+        }
+        
+        return new Catalog(tables);
+    }
+    
+    private static Catalog getCatalog()
+    {
+        var current = catalog;
+        
+        if(current != null) return current;
+        
+        synchronized(TableExtractor.class)
+        {
+            if(catalog == null) catalog = loadCatalog();
+            
+            return catalog;
+        }
+    }
+    
+    public static List<CreateTable> getCreateTables()
+    {
+        return getCatalog().tables;
+    }
+    
+    public static CreateTable getCreateTable(String name)
+    {
+        return getCatalog().index.get(name.toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * @param create the table
+     * @return the create statement the sql command writes for the standard
+     *         dialect
+     */
+    public static String getNormalizedSQL(CreateTable create)
+    {
+        return getCatalog().getSQL(create);
+    }
+    
+    /**
+     * @param create the table
+     * @return parameterized insert statement for every column of the table
+     */
+    public static String getInsertSQL(CreateTable create)
+    {
+        return getCatalog().getInsertSQL(create);
+    }
+    
+    private static class ParsedScript
+    {
+        private final List<String> tables = new JSONArray<>();
+        private final Map<String,List<CreateColumn>> columns = new HashMap<>();
+        private final Map<String,List<CreateConstraint>> constraints = new HashMap<>();
+        private final Map<String,List<CreateIndex>> indexes = new HashMap<>();
+        private final Map<String,BulkInsert> bulkInserts = new HashMap<>();
+        
+        private List<CreateConstraint> getConstraints(String table)
+        {
+            return constraints.computeIfAbsent(getTableName(table).toLowerCase(Locale.ROOT), key -> new JSONArray<>());
+        }
+        
+        private List<CreateIndex> getIndexes(String table)
+        {
+            return indexes.computeIfAbsent(getTableName(table).toLowerCase(Locale.ROOT), key -> new JSONArray<>());
+        }
+    }
+    
+    private static class Catalog
+    {
+        private final List<CreateTable> tables;
+        private final Map<String,CreateTable> index = new HashMap<>();
+        private final Map<CreateTable,String> sql = new ConcurrentHashMap<>();
+        private final Map<CreateTable,String> inserts = new ConcurrentHashMap<>();
+
+        public Catalog(List<CreateTable> tables)
+        {
+            this.tables = List.copyOf(tables);
+            
+            for(CreateTable table : tables)
+            {
+                index.put(table.getTableName().toLowerCase(Locale.ROOT), table);
+            }
+        }
+        
+        /**
+         * Reads a catalog written by write()
+         * 
+         * @param in the catalog data
+         * @return the catalog
+         * @throws IOException if the data can't be read
+         */
+        public static Catalog read(DataInputStream in) throws IOException
+        {
+            var tables = new JSONArray<CreateTable>();
+            var sql = new ArrayList<String>();
+            var inserts = new ArrayList<String>();
+            var count = in.readInt();
+            Catalog catalog;
+            
+            for(var i=0; i<count; i++)
+            {
+                tables.add(readTable(in));
+                sql.add(in.readUTF());
+                inserts.add(in.readUTF());
+            }
+            
+            catalog = new Catalog(tables);
+            
+            for(var i=0; i<count; i++)
+            {
+                catalog.sql.put(tables.get(i), sql.get(i));
+                catalog.inserts.put(tables.get(i), inserts.get(i));
+            }
+            
+            return catalog;
+        }
+        
+        /**
+         * Writes the tables along with their definition hashes and their
+         * normalized create and insert SQL in a compact binary form.
+         * 
+         * @param out the stream to write to
+         * @throws IOException if the data can't be written
+         */
+        public void write(DataOutputStream out) throws IOException
+        {
+            out.writeInt(tables.size());
+            
+            for(CreateTable table : tables)
+            {
+                writeTable(out, table);
+                out.writeUTF(getSQL(table));
+                out.writeUTF(getInsertSQL(table));
+            }
+        }
+        
+        private static void writeString(DataOutputStream out, String value) throws IOException
+        {
+            out.writeBoolean(value != null);
+            
+            if(value != null) out.writeUTF(value);
+        }
+        
+        private static String readString(DataInputStream in) throws IOException
+        {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+        
+        private static void writeList(DataOutputStream out, List<String> values) throws IOException
+        {
+            out.writeInt((values == null) ? -1 : values.size());
+            
+            if(values != null) for(String value : values) out.writeUTF(value);
+        }
+        
+        private static List<String> readList(DataInputStream in) throws IOException
+        {
+            var count = in.readInt();
+            var values = new ArrayList<String>();
+            
+            if(count < 0) return null;
+            
+            for(var i=0; i<count; i++) values.add(in.readUTF());
+            
+            return values;
+        }
+        
+        private static void writeTable(DataOutputStream out, CreateTable table) throws IOException
+        {
+            out.writeUTF(table.table);
+            out.writeInt(table.columns.size());
+            
+            for(CreateColumn column : table.columns)
+            {
+                out.writeUTF(column.name);
+                out.writeUTF(column.type);
+                writeString(out, column.identity);
+                writeString(out, column.nullable);
+            }
+            
+            out.writeInt(table.constraints.size());
+            
+            for(CreateConstraint constraint : table.constraints)
+            {
+                writeString(out, constraint.name);
+                out.writeUTF(constraint.type);
+                writeList(out, constraint.columns);
+                writeString(out, constraint.references);
+                writeList(out, constraint.referencedColumns);
+            }
+            
+            out.writeInt(table.indexes.size());
+            
+            for(CreateIndex index : table.indexes)
             {
-                if(token.length() > 0) list.add(token.toString());
-                
-                list.add(",");
-                token.setLength(0);
+                out.writeUTF(index.name);
+                out.writeUTF(index.table);
+                out.writeBoolean(index.unique);
+                writeList(out, index.columns);
             }
-            else
+            
+            out.writeUTF(table.getHash());
+            out.writeBoolean(table.bulkInsert != null);
+            
+            if(table.bulkInsert == null) return;
+            
+            out.writeUTF(table.bulkInsert.file);
+            out.writeInt(table.bulkInsert.options.size());
+            
+            for(var entry : table.bulkInsert.options.entrySet())
             {
-                token.append(c);
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
             }
         }
         
-        if(token.length() > 0) list.add(token.toString());
+        private static CreateTable readTable(DataInputStream in) throws IOException
+        {
+            var table = in.readUTF();
+            var columns = new ArrayList<CreateColumn>();
+            var constraints = new ArrayList<CreateConstraint>();
+            var indexes = new ArrayList<CreateIndex>();
+            var options = new LinkedHashMap<String,String>();
+            String hash;
+            String file;
+            int count;
+            
+            count = in.readInt();
+            
+            for(var i=0; i<count; i++) columns.add(new CreateColumn(in.readUTF(), in.readUTF(), readString(in), readString(in)));
+            
+            count = in.readInt();
+            
+            for(var i=0; i<count; i++) constraints.add(new CreateConstraint(readString(in), in.readUTF(), readList(in), readString(in), readList(in)));
+            
+            count = in.readInt();
+            
+            for(var i=0; i<count; i++) indexes.add(new CreateIndex(in.readUTF(), in.readUTF(), in.readBoolean(), readList(in)));
+            
+            hash = in.readUTF();
+            
+            if(!in.readBoolean()) return new CreateTable(table, columns, constraints, indexes, null, hash);
+            
+            file = in.readUTF();
+            count = in.readInt();
+            
+            for(var i=0; i<count; i++) options.put(in.readUTF(), in.readUTF());
+            
+            return new CreateTable(table, columns, constraints, indexes, new BulkInsert(file, options), hash);
+        }
+        
+        private boolean contains(CreateTable create)
+        {
+            return (index.get(create.getTableName().toLowerCase(Locale.ROOT)) == create);
+        }
+        
+        public String getSQL(CreateTable create)
+        {
+            if(!contains(create)) return create.toSQL(StandardDialect.INSTANCE);
+            
+            return sql.computeIfAbsent(create, table -> table.toSQL(StandardDialect.INSTANCE));
+        }
         
-        return list;
+        public String getInsertSQL(CreateTable create)
+        {
+            if(!contains(create)) return Main.getInsertSQL(create.getTableName(), create.getColumnNames());
+            
+            return inserts.computeIfAbsent(create, table -> Main.getInsertSQL(table.getTableName(), table.getColumnNames()));
+        }
     }
     
-    public static JSONArray<CreateTable> parse(String sql)
+    public static class CreateTable
     {
-        var lines = sql.split("\n");
-        var tokens = new JSONArray<String>();
-        var tables = new JSONArray<CreateTable>();
-        
-        String token;
-        CreateTable create = null;
-        CreateColumn column;
+        public final String table;
+        public final List<CreateColumn> columns;
+        public final List<CreateConstraint> constraints;
+        public final List<CreateIndex> indexes;
+        public final BulkInsert bulkInsert;
         
+        private final String definitionHash;
+
+        public CreateTable(String table, List<CreateColumn> columns)
+        {
+            this(table, columns, List.of(), List.of(), null);
+        }
+
+        public CreateTable(String table, List<CreateColumn> columns, List<CreateConstraint> constraints, List<CreateIndex> indexes, BulkInsert bulkInsert)
+        {
+            this(table, columns, constraints, indexes, bulkInsert, null);
+        }
+
+        /**
+         * @param definitionHash the hash of the definition if it is already 
+         *        known, such as from a catalog, or null to compute it
+         */
+        public CreateTable(String table, List<CreateColumn> columns, List<CreateConstraint> constraints, List<CreateIndex> indexes, BulkInsert bulkInsert, String definitionHash)
+        {
+            this.table = table;
+            this.columns = List.copyOf(columns);
+            this.constraints = List.copyOf(constraints);
+            this.indexes = List.copyOf(indexes);
+            this.bulkInsert = bulkInsert;
+            this.definitionHash = (definitionHash != null) ? definitionHash : computeHash();
+        }
         
-        for(var line : lines)
+        public CreateTable(JSONObject record)
         {
-            line = line.trim();
+            var columns = new JSONArray<CreateColumn>();
+            var constraints = new JSONArray<CreateConstraint>();
+            var indexes = new JSONArray<CreateIndex>();
             
-            if(line.startsWith("CREATE") || create != null)
+            for(Object column : record.getJSONArray("columns"))
             {
-                tokens.addAll(parseSQLLine(line));
+                columns.add(new CreateColumn((JSONObject)column));
             }
             
-            while(!tokens.isEmpty())
+            for(Object constraint : record.getJSONArray("constraints", new JSONArray<JSONObject>()))
             {
-                token = tokens.remove(0);
-
-                if(token.equalsIgnoreCase("create"))
-                {
-                    if(!tokens.remove(0).equalsIgnoreCase("table")) tokens.clear();
-                    else create = new CreateTable();
-                }
-                else if(create != null && create.table == null)
-                {
-                    create.table = token;
-                    
-                    while(!tokens.isEmpty() && tokens.get(0).equals("."))
-                    {
-                        create.table += tokens.remove(0);
-                        create.table += tokens.remove(0);
-                    }
-                }
-                else if(create != null && token.equals("("))
-                {
-                    create.columns = new JSONArray<>();
-                }
-                else if(create != null && token.equals(")"))
-                {
-                    tables.add(create);
-                    
-                    create = null;
-                }
-                else if(create != null && create.columns != null)
-                {
-                    column = new CreateColumn();
-                    
-                    column.name = token;
-                    column.type = tokens.remove(0);
-                    column.nullable = "";
-                    
-                    if(tokens.get(0).startsWith("("))
-                    {
-                        while(!column.type.endsWith(")")) column.type += tokens.remove(0);
-                    }
-                    
-                    if(tokens.get(0).startsWith("IDENTITY"))
-                    {
-                        column.identity = tokens.remove(0);
-                        
-                        while(!column.identity.endsWith(")")) column.identity += tokens.remove(0);
-                    }
-                    
-                    while(!tokens.isEmpty() && !tokens.get(0).equals(",") && !tokens.get(0).equals(")"))
-                    {
-                        if(column.nullable.length() > 0) column.nullable += " ";
-                        
-                        column.nullable += tokens.remove(0);
-                    }
-                    
-                    if(!tokens.isEmpty() && tokens.get(0).equals(",")) tokens.remove(0);
-
-                    create.columns.add(column);
-                }
+                constraints.add(new CreateConstraint((JSONObject)constraint));
             }
+            
+            for(Object index : record.getJSONArray("indexes", new JSONArray<JSONObject>()))
+            {
+                indexes.add(new CreateIndex((JSONObject)index));
+            }
+            
+            this.table = record.getString("table");
+            this.columns = List.copyOf(columns);
+            this.constraints = List.copyOf(constraints);
+            this.indexes = List.copyOf(indexes);
+            this.bulkInsert = record.isNull("bulkInsert") ? null : new BulkInsert(record.getJSONObject("bulkInsert"));
+            this.definitionHash = computeHash();
         }
         
-        return tables;
-    }
-    
-    public static JSONArray<CreateTable> getCreateTables()
-    {
-        var source = new FileSource("AdventureWorks/raw/instawdbdw.sql");
-        var sql = source.readString("UTF-16");
-        
-        return parse(sql);
-    }
-    
-    public static CreateTable getCreateTable(String name)
-    {
-        for(CreateTable table : getCreateTables())
+        public CreateConstraint getPrimaryKey()
         {
-            if(table.getTableName().equalsIgnoreCase(name))
+            for(CreateConstraint constraint : constraints)
             {
-                return table;
+                if(constraint.isPrimaryKey()) return constraint;
             }
+            
+            return null;
         }
         
-        return null;
-    }
-    
-    public static class CreateTable
-    {
-        public String table;
-        public List<CreateColumn> columns;
-        
         public String getTableName()
         {
             var split = this.table.split("\\.");
@@ -222,18 +945,70 @@ public class TableExtractor
             return names.toArray(String[]::new);
         }
         
+        private static Object sort(Object value)
+        {
+            var sorted = new JSONObject(true);
+            var array = new JSONArray<Object>();
+            
+            if(value instanceof JSONArray)
+            {
+                for(Object item : (JSONArray<?>)value) array.add(sort(item));
+                
+                return array;
+            }
+            
+            if(!(value instanceof JSONObject)) return value;
+            
+            for(String key : new TreeSet<>(((JSONObject)value).keySet()))
+            {
+                sorted.put(key, sort(((JSONObject)value).get(key)));
+            }
+            
+            return sorted;
+        }
+        
+        /**
+         * @return SHA-256 hash of the table definition, which changes if any
+         *         column, constraint or index of the table changes
+         */
+        public String getHash()
+        {
+            return definitionHash;
+        }
+        
+        private String computeHash()
+        {
+            // Keys are sorted so parsed and cached definitions hash the same
+            return hash(sort(toJSONObject()).toString().getBytes(StandardCharsets.UTF_8));
+        }
+        
         public JSONObject toJSONObject()
         {
             var record = new JSONObject();
             var array = new JSONArray<JSONObject>();
+            var keys = new JSONArray<JSONObject>();
+            var indexes = new JSONArray<JSONObject>();
             
             for(CreateColumn column : columns)
             {
                 array.add(column.toJSONObject());
             }
             
+            for(CreateConstraint constraint : constraints)
+            {
+                keys.add(constraint.toJSONObject());
+            }
+            
+            for(CreateIndex index : this.indexes)
+            {
+                indexes.add(index.toJSONObject());
+            }
+            
             record.put("table", table);
             record.put("columns", array);
+            record.put("constraints", keys);
+            record.put("indexes", indexes);
+            record.put("bulkInsert", bulkInsert == null ? null : bulkInsert.toJSONObject());
             
             return record;
         }
@@ -260,6 +1035,79 @@ public class TableExtractor
             return buffer.toString();
         }
         
+        /**
+         * Generates the create statement for a particular database with 
+         * IDENTITY columns as the primary key, the same way as toSQL().
+         * 
+         * @param dialect the database the table is created in
+         * @return create table statement
+         */
+        public String toSQL(SQLDialect dialect)
+        {
+            return toSQL(dialect, true, false, false);
+        }
+        
+        /**
+         * Generates the create statement for a particular database using the
+         * parsed constraints. Databases that can't add constraints to an 
+         * existing table also get their foreign keys inline.
+         * 
+         * @param dialect the database the table is created in
+         * @param keys include the primary key and unique constraints inline
+         * @return create table statement
+         */
+        public String toSQL(SQLDialect dialect, boolean keys)
+        {
+            return toSQL(dialect, false, keys, false);
+        }
+        
+        /**
+         * @param dialect the database the table is created in
+         * @return create statement for a bare table that rows are loaded
+         *         into before being copied into the real table
+         */
+        public String toStagingSQL(SQLDialect dialect)
+        {
+            return toSQL(dialect, false, false, true);
+        }
+        
+        private String toSQL(SQLDialect dialect, boolean identityKeys, boolean keys, boolean staging)
+        {
+            var buffer = new StringBuffer();
+            var first = true;
+            
+            buffer.append(dialect.getCreateTable(this, staging)).append(" (\n");
+            
+            for(CreateColumn column : columns)
+            {
+                if(!first) buffer.append(",\n");
+                
+                buffer.append("    ").append(column.toSQL(dialect, identityKeys));
+                
+                first = false;
+            }
+            
+            for(CreateConstraint constraint : constraints)
+            {
+                if(!keys || (constraint.isForeignKey() && dialect.isAlterSupported())) continue;
+                
+                buffer.append(",\n    ").append(constraint.toSQL());
+            }
+            
+            buffer.append("\n)").append(dialect.getTableOptions(this, staging));
+            
+            return buffer.toString();
+        }
+        
+        /**
+         * @param constraint a constraint on this table
+         * @return alter table statement adding the constraint
+         */
+        public String getAlterSQL(CreateConstraint constraint)
+        {
+            return "alter table " + getTableName() + " add " + constraint.toSQL();
+        }
+        
         @Override
         public String toString()
         {
@@ -269,10 +1117,23 @@ public class TableExtractor
     
     public static class CreateColumn
     {
-        public String name;
-        public String type;
-        public String identity;
-        public String nullable;
+        public final String name;
+        public final String type;
+        public final String identity;
+        public final String nullable;
+
+        public CreateColumn(String name, String type, String identity, String nullable)
+        {
+            this.name = name;
+            this.type = type;
+            this.identity = identity;
+            this.nullable = nullable;
+        }
+        
+        public CreateColumn(JSONObject record)
+        {
+            this(record.getString("name"), record.getString("type"), record.getString("identity"), record.getString("nullable"));
+        }
         
         public JSONObject toJSONObject()
         {
@@ -286,9 +1147,32 @@ public class TableExtractor
             return record;
         }
         
+        /**
+         * @return the lower case type without its size, such as nvarchar for
+         *         nvarchar(50)
+         */
+        public String getBaseType()
+        {
+            var type = this.type.toLowerCase(Locale.ROOT);
+            var index = type.indexOf('(');
+            
+            return (index < 0) ? type : type.substring(0, index).trim();
+        }
+        
+        /**
+         * @return the lower case size of the type in parentheses, such as 
+         *         (50), (19, 4) or (max), or an empty string if it has none
+         */
+        public String getSize()
+        {
+            var index = type.indexOf('(');
+            
+            return (index < 0) ? "" : type.substring(index).toLowerCase(Locale.ROOT);
+        }
+        
         public String getType()
         {
-            String type = this.type.toLowerCase();
+            String type = this.type.toLowerCase(Locale.ROOT);
             
             if(type.startsWith("nvarchar")) type = type.replace("nvarchar", "varchar");
             if(type.startsWith("tinyint")) type = type.replace("tinyint", "int");
@@ -299,9 +1183,22 @@ public class TableExtractor
         
         public String toSQL()
         {
-            String type = getType();
-            
-            if(identity != null && identity.startsWith("IDENTITY"))
+            return toSQL(getType(), name, true);
+        }
+        
+        /**
+         * @param dialect the database the column is created in
+         * @param identityKey render IDENTITY columns as an inline primary key
+         * @return the column definition with the dialect's type
+         */
+        public String toSQL(SQLDialect dialect, boolean identityKey)
+        {
+            return toSQL(dialect.getType(this), dialect.getIdentifier(name), identityKey);
+        }
+        
+        private String toSQL(String type, String name, boolean identityKey)
+        {
+            if(identityKey && identity != null && identity.startsWith("IDENTITY"))
             {
                 return name + " " + type + " Primary Key";
             }
@@ -320,4 +1217,183 @@ public class TableExtractor
             return toSQL();
         }
     }
+    
+    public static class CreateConstraint
+    {
+        public final String name;
+        public final String type;
+        public final List<String> columns;
+        public final String references;
+        public final List<String> referencedColumns;
+
+        public CreateConstraint(String name, String type, List<String> columns, String references, List<String> referencedColumns)
+        {
+            this.name = name;
+            this.type = type;
+            this.columns = List.copyOf(columns);
+            this.references = references;
+            this.referencedColumns = (referencedColumns == null) ? null : List.copyOf(referencedColumns);
+        }
+        
+        public CreateConstraint(JSONObject record)
+        {
+            this(record.getString("name"), 
+                 record.getString("type"), 
+                 toList(record.getJSONArray("columns")), 
+                 record.getString("references"), 
+                 toList(record.getJSONArray("referencedColumns", null)));
+        }
+        
+        private static List<String> toList(JSONArray<?> array)
+        {
+            var list = new JSONArray<String>();
+            
+            if(array == null) return null;
+            
+            for(Object value : array) list.add((String)value);
+            
+            return list;
+        }
+        
+        public boolean isPrimaryKey()
+        {
+            return type.equals("PRIMARY KEY");
+        }
+        
+        public boolean isForeignKey()
+        {
+            return type.equals("FOREIGN KEY");
+        }
+        
+        public String getReferencedTableName()
+        {
+            if(references == null) return null;
+            
+            return getTableName(references);
+        }
+        
+        public String toSQL()
+        {
+            var buffer = new StringBuffer();
+            
+            if(name != null) buffer.append("constraint ").append(name).append(' ');
+            
+            buffer.append(type.toLowerCase(Locale.ROOT));
+            buffer.append(" (").append(String.join(", ", columns)).append(')');
+            
+            if(isForeignKey())
+            {
+                buffer.append(" references ").append(getReferencedTableName());
+                buffer.append(" (").append(String.join(", ", referencedColumns)).append(')');
+            }
+            
+            return buffer.toString();
+        }
+        
+        public JSONObject toJSONObject()
+        {
+            var record = new JSONObject();
+            
+            record.put("name", name);
+            record.put("type", type);
+            record.put("columns", new JSONArray<>(columns));
+            record.put("references", references);
+            record.put("referencedColumns", referencedColumns == null ? null : new JSONArray<>(referencedColumns));
+            
+            return record;
+        }
+    }
+    
+    public static class CreateIndex
+    {
+        public final String name;
+        public final String table;
+        public final boolean unique;
+        public final List<String> columns;
+
+        public CreateIndex(String name, String table, boolean unique, List<String> columns)
+        {
+            this.name = name;
+            this.table = table;
+            this.unique = unique;
+            this.columns = List.copyOf(columns);
+        }
+        
+        public CreateIndex(JSONObject record)
+        {
+            this(record.getString("name"), 
+                 record.getString("table"), 
+                 record.getBoolean("unique"), 
+                 CreateConstraint.toList(record.getJSONArray("columns")));
+        }
+        
+        public String toSQL()
+        {
+            var buffer = new StringBuffer("create ");
+            
+            if(unique) buffer.append("unique ");
+            
+            buffer.append("index ").append(name).append(" on ").append(table);
+            buffer.append(" (").append(String.join(", ", columns)).append(')');
+            
+            return buffer.toString();
+        }
+        
+        public JSONObject toJSONObject()
+        {
+            var record = new JSONObject();
+            
+            record.put("name", name);
+            record.put("table", table);
+            record.put("unique", unique);
+            record.put("columns", new JSONArray<>(columns));
+            
+            return record;
+        }
+    }
+    
+    public static class BulkInsert
+    {
+        public final String file;
+        public final Map<String,String> options;
+
+        public BulkInsert(String file, Map<String,?> options)
+        {
+            var copy = new LinkedHashMap<String,String>();
+            
+            for(var entry : options.entrySet()) copy.put(entry.getKey(), String.valueOf(entry.getValue()));
+            
+            this.file = file;
+            this.options = Collections.unmodifiableMap(copy);
+        }
+        
+        public BulkInsert(JSONObject record)
+        {
+            this(record.getString("file"), record.getJSONObject("options"));
+        }
+        
+        /**
+         * @return the data file name without the sqlcmd path variable
+         */
+        public String getFileName()
+        {
+            return file.substring(Math.max(file.lastIndexOf(')'), Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'))) + 1);
+        }
+        
+        public String getOption(String name)
+        {
+            return options.get(name.toUpperCase(Locale.ROOT));
+        }
+        
+        public JSONObject toJSONObject()
+        {
+            var record = new JSONObject();
+            
+            record.put("file", file);
+            record.put("options", new JSONObject(true));
+            record.getJSONObject("options").putAll(options);
+            
+            return record;
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.example.olap;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs a task against each table, optionally spread across a bounded 
+ * work-stealing pool. When running in parallel the largest raw files are 
+ * started first so that a big table picked up late doesn't stretch out the
+ * end of the run. Each table reports on a single line once it completes so 
+ * that output from different threads doesn't interleave.
+ * 
+ * @author jbanes
+ */
+public class TableScheduler
+{
+    private int threads;
+
+    public TableScheduler(int threads)
+    {
+        if(threads < 1) throw new ConvirganceException("Thread count must be at least 1");
+        
+        this.threads = threads;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+    
+    /**
+     * Raw files may also be gzip compressed as <code>&lt;table&gt;.csv.gz</code>.
+     * The uncompressed file is used if both exist.
+     * 
+     * @param create the table
+     * @return the raw file of the table, which may not exist
+     */
+    public static File getRawFile(TableExtractor.CreateTable create)
+    {
+        var file = new File("AdventureWorks/raw/" + create.getTableName() + ".csv");
+        var compressed = new File(file.getPath() + ".gz");
+        
+        if(!file.exists() && compressed.exists()) return compressed;
+        
+        return file;
+    }
+    
+    public static Source getRawSource(TableExtractor.CreateTable create)
+    {
+        var file = getRawFile(create);
+        
+        if(file.getName().endsWith(".gz")) return new GZIPSource(file);
+        
+        return new FileSource(file);
+    }
+    
+    public static long getRawSize(TableExtractor.CreateTable create)
+    {
+        return getRawFile(create).length(); // Zero if the file doesn't exist
+    }
+    
+    public void execute(String verb, List<TableExtractor.CreateTable> tables, Consumer<TableExtractor.CreateTable> task)
+    {
+        if(threads == 1)
+        {
+            for(var create : tables)
+            {
+                System.out.print(verb + " " + create.getTableName() + "... ");
+                
+                task.accept(create);
+                
+                System.out.println("Done");
+            }
+            
+            return;
+        }
+        
+        executeParallel(verb, tables, task);
+    }
+    
+    private void executeParallel(String verb, List<TableExtractor.CreateTable> tables, Consumer<TableExtractor.CreateTable> task)
+    {
+        var ordered = new ArrayList<>(tables);
+        var tasks = new ArrayList<Callable<Object>>();
+        var pool = new ForkJoinPool(threads);
+        var failure = new AtomicReference<RuntimeException>();
+        
+        ordered.sort(Comparator.comparingLong(TableScheduler::getRawSize).reversed());
+        
+        for(var create : ordered)
+        {
+            tasks.add(() -> {
+                
+                // Don't start new work once something has failed
+                if(failure.get() != null) return null;
+                
+                try
+                {
+                    task.accept(create);
+                    
+                    System.out.println(verb + " " + create.getTableName() + "... Done");
+                }
+                catch(RuntimeException e)
+                {
+                    System.out.println(verb + " " + create.getTableName() + "... Failed");
+                    
+                    if(!failure.compareAndSet(null, e)) failure.get().addSuppressed(e);
+                }
+                
+                return null;
+            });
+        }
+        
+        try
+        {
+            pool.invokeAll(tasks);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        
+        if(failure.get() != null) throw failure.get();
+    }
+}